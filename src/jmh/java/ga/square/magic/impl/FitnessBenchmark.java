@@ -0,0 +1,76 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.SplitMixRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kernels computing sums of rows and columns of a square. The selected
+ * kernel is the vector one only if the vector profile compiled it and JVM
+ * runs with the jdk.incubator.vector module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitnessBenchmark {
+    @Param({"4", "5", "8", "10", "16", "20", "30", "50"})
+    public int squareSize;
+
+    private final LineSums scalar = new ScalarLineSums();
+    private int[] genes;
+    private int[] lines;
+
+    @Setup
+    public void setup() {
+        genes = new MagicSquareGA(50, 1)
+                .randomIndividual(squareSize, new SplitMixRandom(42)).genes();
+        lines = new int[2 * squareSize];
+    }
+
+    /**
+     * Row by row and then column by column, columns read with stride of
+     * the square size.
+     */
+    @Benchmark
+    public int[] strided() {
+        for (int y = 0; y < squareSize; y++) {
+            int sum = 0;
+            for (int x = 0; x < squareSize; x++) {
+                sum += genes[y * squareSize + x];
+            }
+            lines[y] = sum;
+        }
+        for (int x = 0; x < squareSize; x++) {
+            int sum = 0;
+            for (int y = 0; y < squareSize; y++) {
+                sum += genes[y * squareSize + x];
+            }
+            lines[squareSize + x] = sum;
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public int[] scalar() {
+        scalar.sums(genes, 0, squareSize, lines);
+        return lines;
+    }
+
+    @Benchmark
+    public int[] selected() {
+        LineSums.KERNEL.sums(genes, 0, squareSize, lines);
+        return lines;
+    }
+
+    /**
+     * Whole fitness with diagonals, as evaluated by the packed solver.
+     */
+    @Benchmark
+    public int fitnessOf() {
+        return MagicSquareSums.fitnessOf(genes, 0, squareSize, lines, 50);
+    }
+}
@@ -0,0 +1,68 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.SplitMixRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One generation of the solver: parents selection, offspring and survivors
+ * selection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+    @Param({"100", "1000", "10000", "50000"})
+    public int populationSize;
+
+    @Param({"4", "10", "20", "30"})
+    public int squareSize;
+
+    @Param({"1"})
+    public int parallelism;
+
+    private MagicSquareSolver solver;
+    private ForkJoinPool pool;
+    private SplitMixRandom random;
+    private Population<MagicSquare> population;
+    private Population<MagicSquare> children;
+
+    @Setup
+    public void setup() {
+        final MagicSquareGA algorithm = new MagicSquareGA(50, 1);
+        final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                .maxGenerations(Long.MAX_VALUE)
+                .populationSize(populationSize)
+                .N(Long.MAX_VALUE)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .parallelism(parallelism)
+                .build();
+        solver = new MagicSquareSolver(algorithm, squareSize, configuration);
+        random = new SplitMixRandom(42);
+        pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+        population = PopulationBenchmark.randomPopulation(
+                algorithm, populationSize, squareSize);
+        children = new Population<>(populationSize / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Population<MagicSquare> generation() {
+        population = solver.evolve(population, children, pool, random);
+        return population;
+    }
+}
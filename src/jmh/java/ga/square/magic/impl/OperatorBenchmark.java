@@ -0,0 +1,93 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.SplitMixRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operators applied to single individuals.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+    @Param({"4", "10", "20", "30"})
+    public int squareSize;
+
+    private MagicSquareGA algorithm;
+    private SplitMixRandom random;
+    private int[] genes;
+    private MagicSquare father;
+    private MagicSquare mother;
+    private MagicSquare evaluated;
+
+    @Setup
+    public void setup() {
+        algorithm = new MagicSquareGA(50, 1);
+        random = new SplitMixRandom(42);
+        genes = algorithm.randomIndividual(squareSize, random).genes();
+        father = algorithm.randomIndividual(squareSize, random);
+        mother = algorithm.randomIndividual(squareSize, random);
+        evaluated = algorithm.randomIndividual(squareSize, random);
+        algorithm.fitnessOf(evaluated);
+    }
+
+    /**
+     * Full evaluation of an individual without cached sums.
+     */
+    @Benchmark
+    public int fitnessOf() {
+        return algorithm.fitnessOf(new MagicSquare(genes, squareSize));
+    }
+
+    /**
+     * Mutation of a crossover child followed by full evaluation of the
+     * mutant, the way the solver produces children.
+     */
+    @Benchmark
+    public int crossoverMutateAndFitnessOf() {
+        return algorithm.fitnessOf(
+                algorithm.mutate(algorithm.crossover(father, mother, random), random));
+    }
+
+    /**
+     * Mutation of an evaluated individual followed by incremental
+     * evaluation of the mutant. Solvers don't take this path, it bounds
+     * the cost of a single move of local search.
+     */
+    @Benchmark
+    public int incrementalMutateAndFitnessOf() {
+        return algorithm.fitnessOf(algorithm.mutate(evaluated, random));
+    }
+
+    /**
+     * Full computation of genome hash without cached sums.
+     */
+    @Benchmark
+    public long genomeHash() {
+        return new MagicSquare(genes, squareSize).genomeHash();
+    }
+
+    /**
+     * Hash code of the boxed chromosome, the way duplicates would be found
+     * through collections.
+     */
+    @Benchmark
+    public int chromosomeHashCode() {
+        return new MagicSquare(genes, squareSize).chromosome().hashCode();
+    }
+
+    @Benchmark
+    public MagicSquare mutate() {
+        return algorithm.mutate(father, random);
+    }
+
+    @Benchmark
+    public MagicSquare crossover() {
+        return algorithm.crossover(father, mother, random);
+    }
+}
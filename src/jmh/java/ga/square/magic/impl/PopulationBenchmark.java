@@ -0,0 +1,68 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+import ga.square.magic.SplitMixRandom;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operators applied to the whole population.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulationBenchmark {
+    @Param({"100", "1000", "10000", "50000"})
+    public int populationSize;
+
+    @Param({"4", "10", "20", "30"})
+    public int squareSize;
+
+    @Param({"50"})
+    public int tournamentSize;
+
+    private MagicSquareGA algorithm;
+    private SplitMixRandom random;
+    private Population<MagicSquare> population;
+    private Population<MagicSquare> children;
+
+    @Setup
+    public void setup() {
+        algorithm = new MagicSquareGA(tournamentSize, 1);
+        random = new SplitMixRandom(42);
+        population = randomPopulation(algorithm, populationSize, squareSize);
+        children = randomPopulation(algorithm, populationSize / 2, squareSize);
+    }
+
+    @Benchmark
+    public List<ImmutablePair<MagicSquare, MagicSquare>> selectParents() {
+        return algorithm.selectParents(population, random);
+    }
+
+    /**
+     * Includes copying of the population, which is replaced in place.
+     */
+    @Benchmark
+    public Population<MagicSquare> nextGenerationFrom() {
+        return algorithm.nextGenerationFrom(population.copy(), children, random);
+    }
+
+    static Population<MagicSquare> randomPopulation(
+            final MagicSquareGA algorithm,
+            final int populationSize,
+            final int squareSize) {
+        final SplitMixRandom random = new SplitMixRandom(populationSize);
+        final Population<MagicSquare> result = new Population<>(populationSize);
+        for (int i = 0; i < populationSize; i++) {
+            final MagicSquare square = algorithm.randomIndividual(squareSize, random);
+            result.add(square, algorithm.fitnessOf(square));
+        }
+        return result;
+    }
+}
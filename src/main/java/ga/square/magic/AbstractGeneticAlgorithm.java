@@ -0,0 +1,32 @@
+package ga.square.magic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Skeleton of a genetic algorithm evaluating batches of individuals one by
+ * one, algorithms able to evaluate them faster override
+ * {@link #fitnessOf(Individual[], int, int, int[])}.
+ */
+public abstract class AbstractGeneticAlgorithm<I extends Individual>
+        implements GeneticAlgorithm<I> {
+    @Override
+    public void fitnessOf(
+            final I[] individuals, final int from, final int to, final int[] fitness) {
+        checkBatch(individuals, from, to, fitness);
+
+        for (int i = from; i < to; i++) {
+            if (individuals[i] != null) {
+                fitness[i] = fitnessOf(individuals[i]);
+            }
+        }
+    }
+
+    protected static void checkBatch(
+            final Object[] individuals, final int from, final int to, final int[] fitness) {
+        checkArgument(individuals != null, "Illegal argument individuals: null");
+        checkArgument(fitness != null, "Illegal argument fitness: null");
+        checkArgument(
+                0 <= from && from <= to && to <= individuals.length && to <= fitness.length,
+                "Illegal range: [" + from + ", " + to + ")");
+    }
+}
@@ -1,18 +1,36 @@
 package ga.square.magic;
 
-import com.google.common.collect.Multimap;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.List;
 
+/**
+ * Operators take the source of random numbers explicitly, so evolution is
+ * reproducible for the same seed and operators could be used from several
+ * threads, each with its own source.
+ */
 public interface GeneticAlgorithm<I extends Individual> {
-    I randomIndividual(final int sideSize);
+    I randomIndividual(final int sideSize, RandomSource random);
     int fitnessOf(I individual);
-    List<ImmutablePair<I, I>> selectParents(Multimap<Integer, I> population);
-    Multimap<Integer, I> nextGenerationFrom(
-            Multimap<Integer, I> population,
-            Multimap<Integer, I> children);
-    I mutate(I individual);
-    I crossover(I father, I mother);
+    /**
+     * Writes fitness of individuals from index from to index to, exclusive,
+     * to the same indices of fitness, skipping null individuals.
+     */
+    void fitnessOf(I[] individuals, int from, int to, int[] fitness);
+    List<ImmutablePair<I, I>> selectParents(
+            Population<I> population, RandomSource random);
+    /**
+     * Population could be modified in place and returned as a result.
+     */
+    Population<I> nextGenerationFrom(
+            Population<I> population,
+            Population<I> children,
+            RandomSource random);
+    I mutate(I individual, RandomSource random);
+    I crossover(I father, I mother, RandomSource random);
+    /**
+     * Local search trying at most budget moves, returns either a better or
+     * the same individual.
+     */
+    I improve(I individual, int budget, RandomSource random);
 }
@@ -0,0 +1,131 @@
+package ga.square.magic;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Individuals and their fitness stored in parallel arrays. Smaller fitness
+ * means better individual.
+ *
+ * Individuals could be replaced in place, index of the best one is tracked
+ * on every change and is rescanned only after the best individual itself was
+ * replaced with a worse one.
+ */
+public final class Population<I> {
+    private Object[] individuals;
+    private int[] fitness;
+    private int size;
+    private int best;
+
+    public Population(final int capacity) {
+        checkArgument(capacity >= 0, "Capacity should be non-negative");
+        this.individuals = new Object[capacity];
+        this.fitness = new int[capacity];
+        this.size = 0;
+        this.best = -1;
+    }
+
+    private Population(final Population<I> population) {
+        this.individuals = Arrays.copyOf(population.individuals, population.size);
+        this.fitness = Arrays.copyOf(population.fitness, population.size);
+        this.size = population.size;
+        this.best = population.best;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public I individual(final int index) {
+        checkIndex(index);
+        return (I) individuals[index];
+    }
+
+    public int fitness(final int index) {
+        checkIndex(index);
+        return fitness[index];
+    }
+
+    public void add(final I individual, final int fitness) {
+        checkArgument(individual != null, "Illegal argument individual: null");
+
+        if (size == individuals.length) {
+            final int capacity = Math.max(8, size + (size >> 1));
+            this.individuals = Arrays.copyOf(individuals, capacity);
+            this.fitness = Arrays.copyOf(this.fitness, capacity);
+        }
+
+        individuals[size] = individual;
+        this.fitness[size] = fitness;
+        if (size == 0) {
+            best = 0;
+        } else if (best >= 0 && fitness < this.fitness[best]) {
+            best = size;
+        }
+        size += 1;
+    }
+
+    /**
+     * Replaces individual at the given index.
+     */
+    public void set(final int index, final I individual, final int fitness) {
+        checkIndex(index);
+        checkArgument(individual != null, "Illegal argument individual: null");
+
+        final int previous = this.fitness[index];
+        individuals[index] = individual;
+        this.fitness[index] = fitness;
+        if (index == best && fitness > previous) {
+            best = -1;
+        } else if (best >= 0 && fitness < this.fitness[best]) {
+            best = index;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(individuals, 0, size, null);
+        size = 0;
+        best = -1;
+    }
+
+    public int bestIndex() {
+        checkArgument(size > 0, "Population is empty");
+
+        if (best < 0) {
+            int result = 0;
+            for (int i = 1; i < size; i++) {
+                if (fitness[i] < fitness[result]) {
+                    result = i;
+                }
+            }
+            best = result;
+        }
+        return best;
+    }
+
+    public I best() {
+        return individual(bestIndex());
+    }
+
+    public int bestFitness() {
+        return fitness[bestIndex()];
+    }
+
+    /**
+     * Copy which isn't affected by further changes of this population.
+     */
+    public Population<I> copy() {
+        return new Population<>(this);
+    }
+
+    private void checkIndex(final int index) {
+        checkArgument(index >= 0, "Index should be non-negative");
+        checkArgument(index < size, "Index should be smaller than size");
+    }
+}
@@ -0,0 +1,155 @@
+package ga.square.magic;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Fitness statistics of a population: size, mean and quartiles, and
+ * diversity, i.e. share of distinct individuals, if it is known.
+ */
+public final class PopulationSummary {
+    private final int size;
+    private final double mean;
+    private final int best;
+    private final int lowerQuartile;
+    private final int median;
+    private final int upperQuartile;
+    private final int worst;
+    private final double diversity;
+
+    private PopulationSummary(
+            final int size,
+            final double mean,
+            final int best,
+            final int lowerQuartile,
+            final int median,
+            final int upperQuartile,
+            final int worst,
+            final double diversity) {
+        this.size = size;
+        this.mean = mean;
+        this.best = best;
+        this.lowerQuartile = lowerQuartile;
+        this.median = median;
+        this.upperQuartile = upperQuartile;
+        this.worst = worst;
+        this.diversity = diversity;
+    }
+
+    /**
+     * Summary with diversity measured by equality of individuals.
+     */
+    public static PopulationSummary of(final Population<?> population) {
+        checkArgument(population != null, "Illegal argument population: null");
+        checkArgument(!population.isEmpty(), "Population is empty");
+
+        final Set<Object> distinct = new HashSet<>();
+        for (int i = 0; i < population.size(); i++) {
+            distinct.add(population.individual(i));
+        }
+        return of(population, (double) distinct.size() / population.size());
+    }
+
+    /**
+     * @param diversity share of distinct individuals measured by the caller
+     */
+    public static PopulationSummary of(final Population<?> population, final double diversity) {
+        checkArgument(population != null, "Illegal argument population: null");
+        checkArgument(!population.isEmpty(), "Population is empty");
+
+        final int size = population.size();
+        final int[] fitness = new int[size];
+        for (int i = 0; i < size; i++) {
+            fitness[i] = population.fitness(i);
+        }
+        return summaryOf(fitness, diversity);
+    }
+
+    /**
+     * Summary with unknown diversity.
+     *
+     * @param fitness fitness of individuals, only the first size values
+     *                are used
+     */
+    public static PopulationSummary of(final int[] fitness, final int size) {
+        checkArgument(fitness != null, "Illegal argument fitness: null");
+        checkArgument(size > 0 && size <= fitness.length, "Illegal size: " + size);
+
+        return summaryOf(Arrays.copyOf(fitness, size), Double.NaN);
+    }
+
+    private static PopulationSummary summaryOf(final int[] fitness, final double diversity) {
+        checkArgument(
+                Double.isNaN(diversity) || (diversity >= 0 && diversity <= 1),
+                "Illegal diversity: " + diversity);
+
+        final int size = fitness.length;
+        long sum = 0;
+        for (final int value : fitness) {
+            sum += value;
+        }
+        Arrays.sort(fitness);
+
+        return new PopulationSummary(
+                size,
+                (double) sum / size,
+                fitness[0],
+                fitness[(size - 1) / 4],
+                fitness[(size - 1) / 2],
+                fitness[(int) (3L * (size - 1) / 4)],
+                fitness[size - 1],
+                diversity);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public int getBest() {
+        return best;
+    }
+
+    public int getLowerQuartile() {
+        return lowerQuartile;
+    }
+
+    public int getMedian() {
+        return median;
+    }
+
+    public int getUpperQuartile() {
+        return upperQuartile;
+    }
+
+    public int getWorst() {
+        return worst;
+    }
+
+    /**
+     * @return share of distinct individuals, NaN if it is unknown
+     */
+    public double getDiversity() {
+        return diversity;
+    }
+
+    @Override
+    public String toString() {
+        return "PopulationSummary{" +
+                "size=" + size +
+                ", mean=" + mean +
+                ", best=" + best +
+                ", lowerQuartile=" + lowerQuartile +
+                ", median=" + median +
+                ", upperQuartile=" + upperQuartile +
+                ", worst=" + worst +
+                ", diversity=" + diversity +
+                '}';
+    }
+}
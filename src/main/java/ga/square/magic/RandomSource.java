@@ -0,0 +1,29 @@
+package ga.square.magic;
+
+/**
+ * Source of random numbers for genetic operators. Implementations aren't
+ * required to be thread-safe, each thread should use its own source.
+ */
+public interface RandomSource {
+    /**
+     * @return random int from 0 (inclusive) to bound (exclusive)
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return random int from origin (inclusive) to bound (exclusive)
+     */
+    int nextInt(int origin, int bound);
+
+    long nextLong();
+
+    /**
+     * @return random double from 0 (inclusive) to 1 (exclusive)
+     */
+    double nextDouble();
+
+    /**
+     * @return new source which is statistically independent of this one
+     */
+    RandomSource split();
+}
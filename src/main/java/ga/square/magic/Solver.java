@@ -1,20 +1,80 @@
 package ga.square.magic;
 
-import com.google.common.collect.Multimap;
-
 public interface Solver<I extends Individual, GA extends GeneticAlgorithm<I>> {
+    /**
+     * Best individual of a generation and summary of its population.
+     *
+     * Results passed to {@link Listener#progress} don't hold population
+     * themselves: it is copied on the first call of {@link #getPopulation()}
+     * made during the callback, later calls return that copy or null if
+     * population wasn't requested during the callback.
+     */
     public static class SolverResult<I> {
         private final I result;
         private final int fitness;
         private final long generation;
-        private final Multimap<Integer, I> population;
+        private final PopulationSummary summary;
+        private final Throwable failure;
+        private Population<I> population;
+        private Population<I> source;
 
         public SolverResult(
-                final I result, final int fitness, final long generation, final Multimap<Integer, I> population) {
+                final I result, final int fitness, final long generation, final Population<I> population) {
+            this(result, fitness, generation, population,
+                    (population == null || population.isEmpty())
+                            ? null
+                            : PopulationSummary.of(population));
+        }
+
+        public SolverResult(
+                final I result,
+                final int fitness,
+                final long generation,
+                final Population<I> population,
+                final PopulationSummary summary) {
+            this(result, fitness, generation, population, summary, null);
+        }
+
+        /**
+         * @param failure failure which didn't stop the solver, e.g. of
+         *                writing a checkpoint, null if there was none
+         */
+        public SolverResult(
+                final I result,
+                final int fitness,
+                final long generation,
+                final Population<I> population,
+                final PopulationSummary summary,
+                final Throwable failure) {
             this.result = result;
             this.fitness = fitness;
             this.generation = generation;
             this.population = population;
+            this.summary = summary;
+            this.failure = failure;
+        }
+
+        /**
+         * Result which copies the population only if it is requested before
+         * {@link #release()}.
+         */
+        public static <I> SolverResult<I> onDemand(
+                final I result,
+                final int fitness,
+                final long generation,
+                final Population<I> population,
+                final PopulationSummary summary) {
+            final SolverResult<I> solverResult =
+                    new SolverResult<>(result, fitness, generation, null, summary);
+            solverResult.source = population;
+            return solverResult;
+        }
+
+        /**
+         * Stops tracking population, which is going to be changed.
+         */
+        public synchronized void release() {
+            source = null;
         }
 
         public I getResult() {
@@ -29,10 +89,28 @@ public interface Solver<I extends Individual, GA extends GeneticAlgorithm<I>> {
             return fitness;
         }
 
-        public Multimap<Integer, I> getPopulation() {
+        public synchronized Population<I> getPopulation() {
+            if (population == null && source != null) {
+                population = source.copy();
+            }
             return population;
         }
 
+        /**
+         * @return summary of population, null if solver doesn't report it
+         */
+        public PopulationSummary getSummary() {
+            return summary;
+        }
+
+        /**
+         * @return failure which didn't stop the solver, e.g. of writing a
+         *         checkpoint, null if there was none
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
         @Override
         public String toString() {
             return "SolverResult{" +
@@ -43,5 +121,20 @@ public interface Solver<I extends Individual, GA extends GeneticAlgorithm<I>> {
         }
     }
 
+    /**
+     * Receives progress of a solver. Callbacks are invoked on the thread
+     * running the solver, so they shouldn't block.
+     */
+    public interface Listener<I> {
+        /**
+         * @param result best individual of the current generation and
+         *               summary of its population
+         * @param progress percent of maximum generations passed
+         */
+        void progress(SolverResult<I> result, int progress);
+
+        void finished(SolverResult<I> result, long elapsedMillis);
+    }
+
     SolverResult<I> solve();
 }
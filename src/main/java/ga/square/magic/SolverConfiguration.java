@@ -1,14 +1,40 @@
 package ga.square.magic;
 
+import java.nio.file.Path;
+
 import static com.google.common.base.Preconditions.checkArgument;
 
 public class SolverConfiguration {
+    /**
+     * Eviction policy of fitness cache.
+     */
+    public enum CachePolicy {
+        /** Least recently used fitness is evicted. */
+        LRU,
+        /** Second chance approximation of LRU without allocations. */
+        CLOCK
+    }
+
     public static class Builder {
         private long maxGenerations;
         private long populationSize;
         private long N;
         private double crossoverProbability;
         private double mutationProbability;
+        private int parallelism = 1;
+        private long seed = System.nanoTime();
+        private Path checkpointPath;
+        private long checkpointInterval;
+        private double refinementFraction;
+        private int refinementBudget;
+        private boolean rejectDuplicates;
+        private int fitnessCacheSize;
+        private CachePolicy fitnessCachePolicy = CachePolicy.CLOCK;
+        private long timeBudget;
+        private long stagnationLimit;
+        private double diversityThreshold;
+        private int restarts;
+        private double eliteFraction;
 
         public Builder() {}
 
@@ -37,13 +63,112 @@ public class SolverConfiguration {
             return this;
         }
 
+        /**
+         * @param parallelism number of threads used to produce offspring
+         */
+        public Builder parallelism(final int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param seed seed of random numbers, evolution with the same seed
+         *             and configuration is reproducible
+         */
+        public Builder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param checkpointPath file to which state of evolution is written,
+         *                       null to disable checkpoints
+         * @param checkpointInterval generations between checkpoints
+         */
+        public Builder checkpoint(final Path checkpointPath, final long checkpointInterval) {
+            this.checkpointPath = checkpointPath;
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * @param refinementFraction fraction of the best children improved
+         *                           by local search, 0 to disable it
+         * @param refinementBudget moves of local search per child
+         */
+        public Builder refinement(final double refinementFraction, final int refinementBudget) {
+            this.refinementFraction = refinementFraction;
+            this.refinementBudget = refinementBudget;
+            return this;
+        }
+
+        /**
+         * @param rejectDuplicates whether children equal to individuals of
+         *                         the population or to other children are
+         *                         dropped
+         */
+        public Builder rejectDuplicates(final boolean rejectDuplicates) {
+            this.rejectDuplicates = rejectDuplicates;
+            return this;
+        }
+
+        /**
+         * @param fitnessCacheSize fitness values of children cached by hash
+         *                         of their genes, 0 to disable the cache;
+         *                         a hash collision returns wrong fitness
+         *                         without any error
+         * @param fitnessCachePolicy eviction policy of the cache
+         */
+        public Builder fitnessCache(
+                final int fitnessCacheSize, final CachePolicy fitnessCachePolicy) {
+            this.fitnessCacheSize = fitnessCacheSize;
+            this.fitnessCachePolicy = fitnessCachePolicy;
+            return this;
+        }
+
+        /**
+         * @param timeBudget milliseconds after which evolution is stopped,
+         *                   0 for no limit
+         */
+        public Builder timeBudget(final long timeBudget) {
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        /**
+         * @param stagnationLimit generations without improvement of the best
+         *                        fitness after which evolution is stalled,
+         *                        0 to disable the check
+         */
+        public Builder stagnationLimit(final long stagnationLimit) {
+            this.stagnationLimit = stagnationLimit;
+            return this;
+        }
+
+        /**
+         * @param diversityThreshold share of distinct individuals below which
+         *                           evolution is stalled, 0 to disable the
+         *                           check
+         */
+        public Builder diversityThreshold(final double diversityThreshold) {
+            this.diversityThreshold = diversityThreshold;
+            return this;
+        }
+
+        /**
+         * @param restarts times stalled evolution is restarted before it is
+         *                 stopped
+         * @param eliteFraction fraction of the best individuals kept by a
+         *                      restart, the rest is replaced by random ones
+         */
+        public Builder restarts(final int restarts, final double eliteFraction) {
+            this.restarts = restarts;
+            this.eliteFraction = eliteFraction;
+            return this;
+        }
+
         public SolverConfiguration build() {
-            return new SolverConfiguration(
-                    maxGenerations,
-                    populationSize,
-                    N,
-                    crossoverProbability,
-                    mutationProbability);
+            return new SolverConfiguration(this);
         }
     }
 
@@ -52,6 +177,20 @@ public class SolverConfiguration {
     private final long N;
     private final double crossoverProbability;
     private final double mutationProbability;
+    private final int parallelism;
+    private final long seed;
+    private final Path checkpointPath;
+    private final long checkpointInterval;
+    private final double refinementFraction;
+    private final int refinementBudget;
+    private final boolean rejectDuplicates;
+    private final int fitnessCacheSize;
+    private final CachePolicy fitnessCachePolicy;
+    private final long timeBudget;
+    private final long stagnationLimit;
+    private final double diversityThreshold;
+    private final int restarts;
+    private final double eliteFraction;
 
     public SolverConfiguration(
             final long maxGenerations,
@@ -67,6 +206,74 @@ public class SolverConfiguration {
         this.N = N;
         this.crossoverProbability = crossoverProbability;
         this.mutationProbability = mutationProbability;
+        this.parallelism = 1;
+        this.seed = System.nanoTime();
+        this.checkpointPath = null;
+        this.checkpointInterval = 0;
+        this.refinementFraction = 0;
+        this.refinementBudget = 0;
+        this.rejectDuplicates = false;
+        this.fitnessCacheSize = 0;
+        this.fitnessCachePolicy = CachePolicy.CLOCK;
+        this.timeBudget = 0;
+        this.stagnationLimit = 0;
+        this.diversityThreshold = 0;
+        this.restarts = 0;
+        this.eliteFraction = 0;
+    }
+
+    private SolverConfiguration(final Builder builder) {
+        checkArgument(
+                builder.populationSize >= 0,
+                "Populations should contain some individuals");
+        checkArgument(
+                builder.parallelism > 0,
+                "Parallelism level should be positive");
+        checkArgument(
+                builder.checkpointPath == null || builder.checkpointInterval > 0,
+                "Checkpoint interval should be positive");
+        checkArgument(
+                builder.refinementFraction >= 0 && builder.refinementFraction <= 1,
+                "Refinement fraction should be between 0 and 1");
+        checkArgument(
+                builder.refinementBudget >= 0,
+                "Refinement budget should be non-negative");
+        checkArgument(
+                builder.fitnessCacheSize >= 0,
+                "Size of fitness cache should be non-negative");
+        checkArgument(
+                builder.fitnessCachePolicy != null,
+                "Illegal argument fitnessCachePolicy: null");
+        checkArgument(builder.timeBudget >= 0, "Time budget should be non-negative");
+        checkArgument(
+                builder.stagnationLimit >= 0,
+                "Stagnation limit should be non-negative");
+        checkArgument(
+                builder.diversityThreshold >= 0 && builder.diversityThreshold <= 1,
+                "Diversity threshold should be between 0 and 1");
+        checkArgument(builder.restarts >= 0, "Number of restarts should be non-negative");
+        checkArgument(
+                builder.eliteFraction >= 0 && builder.eliteFraction < 1,
+                "Elite fraction should be at least 0 and less than 1");
+        this.maxGenerations = builder.maxGenerations;
+        this.populationSize = builder.populationSize;
+        this.N = builder.N;
+        this.crossoverProbability = builder.crossoverProbability;
+        this.mutationProbability = builder.mutationProbability;
+        this.parallelism = builder.parallelism;
+        this.seed = builder.seed;
+        this.checkpointPath = builder.checkpointPath;
+        this.checkpointInterval = builder.checkpointInterval;
+        this.refinementFraction = builder.refinementFraction;
+        this.refinementBudget = builder.refinementBudget;
+        this.rejectDuplicates = builder.rejectDuplicates;
+        this.fitnessCacheSize = builder.fitnessCacheSize;
+        this.fitnessCachePolicy = builder.fitnessCachePolicy;
+        this.timeBudget = builder.timeBudget;
+        this.stagnationLimit = builder.stagnationLimit;
+        this.diversityThreshold = builder.diversityThreshold;
+        this.restarts = builder.restarts;
+        this.eliteFraction = builder.eliteFraction;
     }
 
     public long maxGenerations() {
@@ -88,4 +295,64 @@ public class SolverConfiguration {
     public double mutationProbability() {
         return mutationProbability;
     }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @return file to which checkpoints are written, null if checkpoints are
+     *         disabled
+     */
+    public Path checkpointPath() {
+        return checkpointPath;
+    }
+
+    public long checkpointInterval() {
+        return checkpointInterval;
+    }
+
+    public double refinementFraction() {
+        return refinementFraction;
+    }
+
+    public int refinementBudget() {
+        return refinementBudget;
+    }
+
+    public boolean rejectDuplicates() {
+        return rejectDuplicates;
+    }
+
+    public int fitnessCacheSize() {
+        return fitnessCacheSize;
+    }
+
+    public CachePolicy fitnessCachePolicy() {
+        return fitnessCachePolicy;
+    }
+
+    public long timeBudget() {
+        return timeBudget;
+    }
+
+    public long stagnationLimit() {
+        return stagnationLimit;
+    }
+
+    public double diversityThreshold() {
+        return diversityThreshold;
+    }
+
+    public int restarts() {
+        return restarts;
+    }
+
+    public double eliteFraction() {
+        return eliteFraction;
+    }
 }
@@ -0,0 +1,81 @@
+package ga.square.magic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * SplitMix64 generator: the whole state is a single long which is advanced
+ * by a constant and scrambled on output. Generator with the same seed always
+ * produces the same sequence.
+ */
+public final class SplitMixRandom implements RandomSource {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    private long state;
+
+    public SplitMixRandom(final long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Generator for the given index of a family of generators with common
+     * seed, e.g. one per child of a generation, so results don't depend on
+     * which thread uses which generator.
+     */
+    public static SplitMixRandom forIndex(final long seed, final long index) {
+        return new SplitMixRandom(mix64(seed + index * GOLDEN_GAMMA));
+    }
+
+    /**
+     * State which could be passed to the constructor to continue the same
+     * sequence.
+     */
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        checkArgument(bound > 0, "Bound should be positive");
+
+        long product = (nextLong() >>> 32) * bound;
+        long fraction = product & 0xffffffffL;
+        if (fraction < bound) {
+            final long threshold = (0x100000000L - bound) % bound;
+            while (fraction < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                fraction = product & 0xffffffffL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public int nextInt(final int origin, final int bound) {
+        checkArgument(origin < bound, "Origin should be smaller than bound");
+        return origin + nextInt(bound - origin);
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public SplitMixRandom split() {
+        return new SplitMixRandom(mix64(nextLong()));
+    }
+
+    private static long mix64(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
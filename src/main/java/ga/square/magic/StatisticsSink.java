@@ -0,0 +1,161 @@
+package ga.square.magic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Listener writing statistics of every reported generation to a CSV file as
+ * soon as it is reported, so memory used doesn't grow with length of the run.
+ *
+ * Each row holds generation, milliseconds since the first report and since
+ * the previous one, best, mean, median and worst fitness and diversity, i.e.
+ * share of distinct individuals. Statistics of the population are taken
+ * from its summary and are empty if solver doesn't report it, diversity is
+ * empty if the summary doesn't know it. Optionally the whole population is
+ * written to another CSV file: generation, fitness and chromosome of every
+ * individual; population is requested from results only in this case.
+ *
+ * Files are closed when the solver finishes.
+ */
+public class StatisticsSink<I extends Individual<?>>
+        implements Solver.Listener<I>, Closeable {
+    public static final String HEADER =
+            "generation,elapsed_ms,interval_ms,best,mean,median,worst,diversity";
+
+    private final Writer statistics;
+    private final Writer snapshots;
+
+    private long startNanos = -1;
+    private long previousNanos;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * @param statistics file for statistics of generations
+     * @param snapshots file for populations, null to skip them
+     */
+    public StatisticsSink(final Path statistics, final Path snapshots)
+            throws IOException {
+        checkArgument(statistics != null, "Illegal argument statistics: null");
+
+        this.statistics = Files.newBufferedWriter(statistics, StandardCharsets.UTF_8);
+        this.statistics.write(HEADER);
+        this.statistics.write('\n');
+        if (snapshots == null) {
+            this.snapshots = null;
+        } else {
+            this.snapshots = Files.newBufferedWriter(snapshots, StandardCharsets.UTF_8);
+            this.snapshots.write("generation,fitness,chromosome\n");
+        }
+    }
+
+    @Override
+    public synchronized void progress(
+            final Solver.SolverResult<I> result, final int progress) {
+        record(result);
+    }
+
+    @Override
+    public synchronized void finished(
+            final Solver.SolverResult<I> result, final long elapsedMillis) {
+        record(result);
+        try {
+            close();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * @throws IOException first failure of writing, if any
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                statistics.close();
+            } finally {
+                if (snapshots != null) {
+                    snapshots.close();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void record(final Solver.SolverResult<I> result) {
+        if (closed || failure != null || result == null) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        if (startNanos < 0) {
+            startNanos = now;
+            previousNanos = now;
+        }
+
+        try {
+            writeStatistics(result, (now - startNanos) / 1000000, (now - previousNanos) / 1000000);
+            if (snapshots != null && result.getPopulation() != null) {
+                writeSnapshot(result.getGeneration(), result.getPopulation());
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        previousNanos = now;
+    }
+
+    private void writeStatistics(
+            final Solver.SolverResult<I> result,
+            final long elapsedMillis,
+            final long intervalMillis) throws IOException {
+        final StringBuilder row = new StringBuilder(64);
+        row.append(result.getGeneration()).append(',')
+                .append(elapsedMillis).append(',')
+                .append(intervalMillis).append(',')
+                .append(result.getFitness()).append(',');
+
+        final PopulationSummary summary = result.getSummary();
+        if (summary != null) {
+            row.append(summary.getMean()).append(',')
+                    .append(summary.getMedian()).append(',')
+                    .append(summary.getWorst()).append(',');
+            if (!Double.isNaN(summary.getDiversity())) {
+                row.append(summary.getDiversity());
+            }
+        } else {
+            row.append(",,,");
+        }
+        row.append('\n');
+
+        statistics.write(row.toString());
+    }
+
+    private void writeSnapshot(final long generation, final Population<I> population)
+            throws IOException {
+        final StringBuilder row = new StringBuilder();
+        for (int i = 0; i < population.size(); i++) {
+            row.setLength(0);
+            row.append(generation).append(',').append(population.fitness(i)).append(',');
+            boolean first = true;
+            for (final Object gene : population.individual(i).chromosome()) {
+                if (!first) {
+                    row.append(' ');
+                }
+                row.append(gene);
+                first = false;
+            }
+            row.append('\n');
+            snapshots.write(row.toString());
+        }
+    }
+}
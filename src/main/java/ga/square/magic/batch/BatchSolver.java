@@ -0,0 +1,159 @@
+package ga.square.magic.batch;
+
+import ga.square.magic.Solver;
+import ga.square.magic.impl.MagicSquare;
+import ga.square.magic.impl.MagicSquareGA;
+import ga.square.magic.impl.MagicSquareSolver;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Solves many jobs concurrently on a work-stealing pool with bounded
+ * parallelism. All jobs run in the same JVM, so they share compiled code
+ * and per-thread scratch buffers of the operators.
+ *
+ * Results are delivered to a listener as soon as each job finishes.
+ */
+public class BatchSolver {
+    /**
+     * Receives results of jobs, callbacks are invoked concurrently from
+     * threads of the pool.
+     */
+    public interface Listener {
+        void completed(JobResult result);
+
+        void failed(SolveJob job, Throwable error);
+    }
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism maximum number of jobs solved at the same time
+     */
+    public BatchSolver(final int parallelism) {
+        checkArgument(parallelism > 0, "Parallelism level should be positive");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Blocks until all jobs are finished.
+     */
+    public void solveAll(final Iterable<SolveJob> jobs, final Listener listener)
+            throws InterruptedException {
+        checkArgument(jobs != null, "Illegal argument jobs: null");
+        checkArgument(listener != null, "Illegal argument listener: null");
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final ScheduledExecutorService timer =
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        final Thread thread = new Thread(r, "batch-solver-timer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            for (final SolveJob job : jobs) {
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        solve(job, timer, listener);
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } finally {
+            pool.shutdownNow();
+            timer.shutdownNow();
+        }
+    }
+
+    private void solve(
+            final SolveJob job,
+            final ScheduledExecutorService timer,
+            final Listener listener) {
+        try {
+            final MagicSquareSolver solver = new MagicSquareSolver(
+                    new MagicSquareGA(job.getTournamentSize(), job.getSymmetryMultiplier()),
+                    job.getSquareSize(),
+                    job.getConfiguration());
+
+            final AtomicBoolean timedOut = new AtomicBoolean(false);
+            ScheduledFuture<?> timeout = null;
+            if (job.getTimeoutMillis() > 0) {
+                timeout = timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        timedOut.set(true);
+                        solver.cancel();
+                    }
+                }, job.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            final long startTime = System.currentTimeMillis();
+            final Solver.SolverResult<MagicSquare> result = solver.solve();
+            final long elapsed = System.currentTimeMillis() - startTime;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+
+            listener.completed(new JobResult(job, result, elapsed, timedOut.get()));
+        } catch (Exception e) {
+            listener.failed(job, e);
+        }
+    }
+
+    /**
+     * Solves jobs from the given file, one job per line as described in
+     * {@link SolveJob#parse(String)}, empty lines and lines starting with #
+     * are skipped. Results are printed one per line as soon as they are
+     * ready.
+     *
+     * Arguments: jobs file and optional parallelism level, which defaults
+     * to number of available processors.
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: BatchSolver <jobs file> [parallelism]");
+            System.exit(1);
+        }
+
+        final List<SolveJob> jobs = new ArrayList<>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(args[0]), "utf-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty() && !line.trim().startsWith("#")) {
+                    jobs.add(SolveJob.parse(line));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        final int parallelism = (args.length > 1)
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        new BatchSolver(parallelism).solveAll(jobs, new Listener() {
+            @Override
+            public void completed(final JobResult result) {
+                System.out.println(result);
+            }
+
+            @Override
+            public void failed(final SolveJob job, final Throwable error) {
+                System.err.println(job.getId() + " failed: " + error);
+            }
+        });
+    }
+}
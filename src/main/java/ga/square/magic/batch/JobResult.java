@@ -0,0 +1,59 @@
+package ga.square.magic.batch;
+
+import ga.square.magic.Solver;
+import ga.square.magic.impl.MagicSquare;
+
+/**
+ * Outcome of a finished job.
+ */
+public class JobResult {
+    private final SolveJob job;
+    private final Solver.SolverResult<MagicSquare> result;
+    private final long elapsedMillis;
+    private final boolean timedOut;
+
+    public JobResult(
+            final SolveJob job,
+            final Solver.SolverResult<MagicSquare> result,
+            final long elapsedMillis,
+            final boolean timedOut) {
+        this.job = job;
+        this.result = result;
+        this.elapsedMillis = elapsedMillis;
+        this.timedOut = timedOut;
+    }
+
+    public SolveJob getJob() {
+        return job;
+    }
+
+    public Solver.SolverResult<MagicSquare> getResult() {
+        return result;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Single line with id, fitness, generation, elapsed time, timeout flag
+     * and genes of the best individual.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(job.getId())
+                .append(' ').append(result.getFitness())
+                .append(' ').append(result.getGeneration())
+                .append(' ').append(elapsedMillis)
+                .append(' ').append(timedOut ? "timeout" : "done");
+        for (final Integer gene : result.getResult().chromosome()) {
+            sb.append(' ').append(gene);
+        }
+        return sb.toString();
+    }
+}
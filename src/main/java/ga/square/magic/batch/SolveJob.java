@@ -0,0 +1,111 @@
+package ga.square.magic.batch;
+
+import ga.square.magic.SolverConfiguration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Single solve of a batch: square size, solver configuration and parameters
+ * of the genetic algorithm.
+ */
+public class SolveJob {
+    private final String id;
+    private final int squareSize;
+    private final SolverConfiguration configuration;
+    private final int tournamentSize;
+    private final double symmetryMultiplier;
+    private final long timeoutMillis;
+
+    /**
+     * @param tournamentSize size of tournament
+     * @param symmetryMultiplier multiplier for symmetry fitness
+     * @param timeoutMillis time after which job is stopped and the best
+     *                      individual found so far is returned, 0 for no
+     *                      timeout
+     */
+    public SolveJob(
+            final String id,
+            final int squareSize,
+            final SolverConfiguration configuration,
+            final int tournamentSize,
+            final double symmetryMultiplier,
+            final long timeoutMillis) {
+        checkArgument(id != null, "Illegal argument id: null");
+        checkArgument(configuration != null, "Illegal argument configuration: null");
+        checkArgument(squareSize > 0, "Size of square should be positive");
+        checkArgument(timeoutMillis >= 0, "Timeout should be non-negative");
+        this.id = id;
+        this.squareSize = squareSize;
+        this.configuration = configuration;
+        this.tournamentSize = tournamentSize;
+        this.symmetryMultiplier = symmetryMultiplier;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Parses whitespace separated job description:
+     * id, square size, population size, max generations, crossover
+     * probability, mutation probability, tournament size, symmetry
+     * multiplier, timeout in milliseconds and optional seed of random
+     * numbers.
+     */
+    public static SolveJob parse(final String line) {
+        checkArgument(line != null, "Illegal argument line: null");
+        final String[] fields = line.trim().split("\\s+");
+        checkArgument(
+                fields.length == 9 || fields.length == 10,
+                "Job should be described by 9 or 10 fields: " + line);
+
+        final long maxGenerations = Long.parseLong(fields[3]);
+        final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                .populationSize(Long.parseLong(fields[2]))
+                .maxGenerations(maxGenerations)
+                .N(Math.max(1, maxGenerations))
+                .crossoverProbability(Double.parseDouble(fields[4]))
+                .mutationProbability(Double.parseDouble(fields[5]));
+        if (fields.length == 10) {
+            builder.seed(Long.parseLong(fields[9]));
+        }
+        final SolverConfiguration configuration = builder.build();
+
+        return new SolveJob(
+                fields[0],
+                Integer.parseInt(fields[1]),
+                configuration,
+                Integer.parseInt(fields[6]),
+                Double.parseDouble(fields[7]),
+                Long.parseLong(fields[8]));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    public SolverConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public int getTournamentSize() {
+        return tournamentSize;
+    }
+
+    public double getSymmetryMultiplier() {
+        return symmetryMultiplier;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SolveJob{" +
+                "id='" + id + '\'' +
+                ", squareSize=" + squareSize +
+                '}';
+    }
+}
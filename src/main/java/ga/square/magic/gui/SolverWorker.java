@@ -0,0 +1,85 @@
+package ga.square.magic.gui;
+
+import ga.square.magic.Solver;
+import ga.square.magic.impl.MagicSquare;
+import ga.square.magic.impl.MagicSquareSolver;
+
+import javax.swing.*;
+import java.util.List;
+
+/**
+ * Runs solver in background and forwards its progress to the event dispatch
+ * thread as "progress", "currentBestIndividual" and "totalTime" property
+ * changes.
+ */
+public class SolverWorker
+        extends SwingWorker<Solver.SolverResult<MagicSquare>, Solver.SolverResult<MagicSquare>>
+        implements Solver.Listener<MagicSquare> {
+    private final MagicSquareSolver solver;
+
+    private volatile long elapsedMillis;
+    private Solver.SolverResult<MagicSquare> currentBestIndividual;
+
+    public SolverWorker(final MagicSquareSolver solver) {
+        this.solver = solver;
+        this.solver.addListener(this);
+    }
+
+    /**
+     * Cancels both the solver and the worker.
+     */
+    public void stop() {
+        solver.cancel();
+        cancel(true);
+    }
+
+    @Override
+    public void progress(
+            final Solver.SolverResult<MagicSquare> result, final int progress) {
+        publish(result);
+        setProgress(progress);
+    }
+
+    @Override
+    public void finished(
+            final Solver.SolverResult<MagicSquare> result, final long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    protected Solver.SolverResult<MagicSquare> doInBackground() throws Exception {
+        return solver.solve();
+    }
+
+    @Override
+    protected void process(final List<Solver.SolverResult<MagicSquare>> chunks) {
+        for (final Solver.SolverResult<MagicSquare> result : chunks) {
+            fireCurrentBestIndividual(result);
+        }
+    }
+
+    @Override
+    protected void done() {
+        try {
+            setProgress(100);
+            fireCurrentBestIndividual(get());
+            firePropertyChange(
+                    "totalTime",
+                    0,
+                    Double.toString(elapsedMillis / 1000.0));
+        } catch (Exception ignore) {
+
+        }
+        solver.removeListener(this);
+        super.done();
+    }
+
+    private void fireCurrentBestIndividual(
+            final Solver.SolverResult<MagicSquare> result) {
+        firePropertyChange(
+                "currentBestIndividual",
+                currentBestIndividual,
+                result);
+        currentBestIndividual = result;
+    }
+}
@@ -3,6 +3,7 @@ package ga.square.magic.gui;
 import ga.square.magic.GeneticAlgorithm;
 import ga.square.magic.Solver;
 import ga.square.magic.SolverConfiguration;
+import ga.square.magic.StatisticsSink;
 import ga.square.magic.impl.MagicSquare;
 import ga.square.magic.impl.MagicSquareGA;
 import ga.square.magic.impl.MagicSquareSolver;
@@ -13,10 +14,9 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Created with IntelliJ IDEA.
@@ -44,16 +44,18 @@ public class TestGui {
     private JTextField InputN;
     private JButton saveResultsButton;
     private JButton saveParametersButton;
+    private JCheckBox savePopulationsCheckBox;
 
     private SquarePanel squarePanel;
 
     private PropertyChangeListener propertyChangeListener;
 
-    private MagicSquareSolver s;
+    private SolverWorker s;
 
-    public TestGui() {
-        final StringBuilder resultsStats = new StringBuilder();
+    private Path statisticsFile;
+    private Path populationsFile;
 
+    public TestGui() {
         propertyChangeListener = new PropertyChangeListener() {
             public void propertyChange(PropertyChangeEvent evt) {
                 if ("progress".equals(evt.getPropertyName())) {
@@ -67,27 +69,12 @@ public class TestGui {
                             squarePanel.updateMagicSquare(r.getResult());
                             currentGeneration.setText(String.valueOf(r.getGeneration()));
                             bestFitness.setText(String.valueOf(r.getFitness()));
-
-                            resultsStats.append("Generation: " + r.getGeneration() + '\n');
-                            resultsStats.append("Best fitness: " + r.getFitness() + '\n');
-                            resultsStats.append("Best individual: " + r.getResult() + '\n');
-                            resultsStats.append("Population:\n");
-                            final List<Integer> fitnesses = new ArrayList(r.getPopulation().keySet());
-                            Collections.sort(fitnesses);
-                            for (final Integer fitness : fitnesses) {
-                                resultsStats.append("Fitness: " + fitness + " Individuals:\n");
-                                for (final MagicSquare ms : r.getPopulation().get(fitness)) {
-                                    resultsStats.append(ms + "\n");
-                                }
-                            }
-                            resultsStats.append("\n");
                         }
                     }
                 } else if ("totalTime".equals(evt.getPropertyName())) {
                     RUNButton.setText("Run");
                     saveResultsButton.setEnabled(true);
                     Time.setText(evt.getNewValue().toString());
-                    resultsStats.append("Total time: " + evt.getNewValue() + " seconds\n");
                 }
             }
         };
@@ -100,7 +87,6 @@ public class TestGui {
                     saveResultsButton.setEnabled(false);
                     RUNButton.setText("Stop");
                     Time.setText("TIME");
-                    resultsStats.delete(0, resultsStats.length());
                     final SolverConfiguration sc = new SolverConfiguration.Builder()
                             .maxGenerations(Long.parseLong(InputGeneration.getText()))
                             .populationSize(Long.parseLong(InputPopultion.getText()))
@@ -111,14 +97,27 @@ public class TestGui {
                     final GeneticAlgorithm<MagicSquare> a = new MagicSquareGA(
                             Integer.parseInt(InputTournamentSize.getText()),
                             Double.parseDouble(InputSymmetryMultiplier.getText()));
-                    s = new MagicSquareSolver(a, Integer.parseInt(InputSquareSize.getText()), sc);
+                    final MagicSquareSolver solver = new MagicSquareSolver(
+                            a, Integer.parseInt(InputSquareSize.getText()), sc);
+                    deleteResults();
+                    try {
+                        statisticsFile = temporaryFile("magic-square-statistics");
+                        if (savePopulationsCheckBox.isSelected()) {
+                            populationsFile = temporaryFile("magic-square-populations");
+                        }
+                        solver.addListener(new StatisticsSink<MagicSquare>(
+                                statisticsFile, populationsFile));
+                    } catch (IOException ex) {
+                        deleteResults();
+                    }
+                    s = new SolverWorker(solver);
                     s.addPropertyChangeListener(propertyChangeListener);
 
                     s.execute();
                 } else {
                     RUNButton.setText("Run");
                     saveResultsButton.setEnabled(true);
-                    s.cancel(true);
+                    s.stop();
                     s.removePropertyChangeListener(propertyChangeListener);
                 }
             }
@@ -186,27 +185,52 @@ public class TestGui {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
                 final int returnVal = paramsFileChooser.showSaveDialog(MagicSquarePanel);
-                if (returnVal == JFileChooser.APPROVE_OPTION) {
+                if (returnVal == JFileChooser.APPROVE_OPTION && statisticsFile != null) {
                     final File file = paramsFileChooser.getSelectedFile();
-                    Writer writer = null;
 
                     try {
-                        writer = new BufferedWriter(new OutputStreamWriter(
-                                new FileOutputStream(file), "utf-8"));
-                        writer.write(resultsStats.toString());
+                        Files.copy(
+                                statisticsFile,
+                                file.toPath(),
+                                StandardCopyOption.REPLACE_EXISTING);
+                        if (populationsFile != null) {
+                            Files.copy(
+                                    populationsFile,
+                                    file.toPath().resolveSibling(file.getName() + ".populations.csv"),
+                                    StandardCopyOption.REPLACE_EXISTING);
+                        }
                     } catch (IOException ex) {
                         // report
-                    } finally {
-                        try {
-                            writer.close();
-                        } catch (Exception ex) {
-                        }
                     }
                 }
             }
         });
     }
 
+    /**
+     * Temporary file for results of a run, deleted when the next run starts
+     * or on exit.
+     */
+    private static Path temporaryFile(final String prefix) throws IOException {
+        final Path file = Files.createTempFile(prefix, ".csv");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private void deleteResults() {
+        for (final Path file : new Path[]{statisticsFile, populationsFile}) {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    // deleted on exit
+                }
+            }
+        }
+        statisticsFile = null;
+        populationsFile = null;
+    }
+
     private void createUIComponents() {
         squarePanel = new SquarePanel();
         squarePanelRef = squarePanel;
@@ -0,0 +1,175 @@
+package ga.square.magic.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Parameters of {@link AnnealingSolver}.
+ */
+public class AnnealingConfiguration {
+    /**
+     * Temperature at the given step of a run cooling from the initial to the
+     * final temperature.
+     */
+    public enum Schedule {
+        /** Temperature decreases by the same factor every step. */
+        EXPONENTIAL {
+            @Override
+            double temperature(
+                    final double initial, final double last, final long step, final long steps) {
+                return initial * Math.pow(last / initial, (double) step / steps);
+            }
+        },
+        /** Temperature decreases by the same amount every step. */
+        LINEAR {
+            @Override
+            double temperature(
+                    final double initial, final double last, final long step, final long steps) {
+                return initial + (last - initial) * step / steps;
+            }
+        },
+        /** Temperature is inversely proportional to 1 + c * log(1 + step). */
+        LOGARITHMIC {
+            @Override
+            double temperature(
+                    final double initial, final double last, final long step, final long steps) {
+                final double scale = (initial / last - 1) / Math.log(1 + steps);
+                return initial / (1 + scale * Math.log(1 + step));
+            }
+        };
+
+        abstract double temperature(double initial, double last, long step, long steps);
+    }
+
+    public static class Builder {
+        private long steps;
+        private double initialTemperature;
+        private double finalTemperature;
+        private Schedule schedule = Schedule.LOGARITHMIC;
+        private int restarts;
+        private int chains = 1;
+        private long N;
+        private long seed = System.nanoTime();
+
+        public Builder() {}
+
+        /**
+         * @param steps moves tried by every run of a chain
+         */
+        public Builder steps(final long steps) {
+            this.steps = steps;
+            return this;
+        }
+
+        public Builder initialTemperature(final double initialTemperature) {
+            this.initialTemperature = initialTemperature;
+            return this;
+        }
+
+        public Builder finalTemperature(final double finalTemperature) {
+            this.finalTemperature = finalTemperature;
+            return this;
+        }
+
+        public Builder schedule(final Schedule schedule) {
+            this.schedule = schedule;
+            return this;
+        }
+
+        /**
+         * @param restarts runs of a chain after the first one, every restart
+         *                 reheats the best square found by the chain
+         */
+        public Builder restarts(final int restarts) {
+            this.restarts = restarts;
+            return this;
+        }
+
+        /**
+         * @param chains independent chains annealed in parallel
+         */
+        public Builder chains(final int chains) {
+            this.chains = chains;
+            return this;
+        }
+
+        /**
+         * @param N steps between progress reports
+         */
+        public Builder N(final long N) {
+            this.N = N;
+            return this;
+        }
+
+        public Builder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public AnnealingConfiguration build() {
+            return new AnnealingConfiguration(this);
+        }
+    }
+
+    private final long steps;
+    private final double initialTemperature;
+    private final double finalTemperature;
+    private final Schedule schedule;
+    private final int restarts;
+    private final int chains;
+    private final long N;
+    private final long seed;
+
+    private AnnealingConfiguration(final Builder builder) {
+        checkArgument(builder.steps > 0, "Number of steps should be positive");
+        checkArgument(
+                builder.finalTemperature > 0,
+                "Final temperature should be positive");
+        checkArgument(
+                builder.initialTemperature >= builder.finalTemperature,
+                "Initial temperature should be not lower than final");
+        checkArgument(builder.schedule != null, "Illegal argument schedule: null");
+        checkArgument(builder.restarts >= 0, "Number of restarts should be non-negative");
+        checkArgument(builder.chains > 0, "Number of chains should be positive");
+        checkArgument(builder.N > 0, "Steps between reports should be positive");
+        this.steps = builder.steps;
+        this.initialTemperature = builder.initialTemperature;
+        this.finalTemperature = builder.finalTemperature;
+        this.schedule = builder.schedule;
+        this.restarts = builder.restarts;
+        this.chains = builder.chains;
+        this.N = builder.N;
+        this.seed = builder.seed;
+    }
+
+    public long steps() {
+        return steps;
+    }
+
+    public double initialTemperature() {
+        return initialTemperature;
+    }
+
+    public double finalTemperature() {
+        return finalTemperature;
+    }
+
+    public Schedule schedule() {
+        return schedule;
+    }
+
+    public int restarts() {
+        return restarts;
+    }
+
+    public int chains() {
+        return chains;
+    }
+
+    public long getN() {
+        return N;
+    }
+
+    public long seed() {
+        return seed;
+    }
+}
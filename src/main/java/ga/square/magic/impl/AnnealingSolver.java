@@ -0,0 +1,216 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.GeneticAlgorithm;
+import ga.square.magic.RandomSource;
+import ga.square.magic.Solver;
+import ga.square.magic.SplitMixRandom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Simulated annealing of a single square per chain: a move swaps two random
+ * cells, it is scored in O(1) by incremental update of sums and is accepted
+ * if it doesn't make fitness worse or with probability exp(-delta / T).
+ * Fitness is the same as {@link MagicSquareGA#fitnessOf}.
+ *
+ * Chains are annealed in parallel from different random squares, each with
+ * its own generator derived from the seed. Every chain runs from the initial
+ * to the final temperature once and once per restart, restarts reheat the
+ * best square found by the chain. All chains stop as soon as any of them
+ * finds a solution.
+ */
+public class AnnealingSolver
+        implements Solver<MagicSquare, GeneticAlgorithm<MagicSquare>> {
+    /** Steps between updates of the temperature. */
+    private static final int COOLING_INTERVAL = 64;
+
+    private final MagicSquareGA algorithm;
+    private final double k;
+    private final int squareSize;
+    private final AnnealingConfiguration configuration;
+    private final List<Listener<MagicSquare>> listeners;
+
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    private volatile SolverResult<MagicSquare> currentBestIndividual;
+
+    /**
+     * @param k multiplier for symmetry fitness
+     */
+    public AnnealingSolver(
+            final double k,
+            final int squareSize,
+            final AnnealingConfiguration configuration) {
+        checkArgument(configuration != null, "Illegal argument configuration: null");
+        checkArgument(squareSize > 1, "Size of square should be greater than 1");
+        this.algorithm = new MagicSquareGA(1, k);
+        this.k = k;
+        this.squareSize = squareSize;
+        this.configuration = configuration;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Progress is reported by the first chain and contains the best square
+     * found by all chains so far, generation is the number of steps.
+     */
+    public void addListener(final Listener<MagicSquare> listener) {
+        checkArgument(listener != null, "Illegal argument listener: null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener<MagicSquare> listener) {
+        listeners.remove(listener);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public SolverResult<MagicSquare> solve() {
+        finished = false;
+        currentBestIndividual = null;
+
+        final int chains = configuration.chains();
+        final long startTime = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(chains);
+        final List<Future<SolverResult<MagicSquare>>> futures = new ArrayList<>(chains);
+        SolverResult<MagicSquare> result = null;
+        try {
+            for (int i = 0; i < chains; i++) {
+                final int chain = i;
+                futures.add(executor.submit(new Callable<SolverResult<MagicSquare>>() {
+                    @Override
+                    public SolverResult<MagicSquare> call() {
+                        return anneal(chain);
+                    }
+                }));
+            }
+
+            for (final Future<SolverResult<MagicSquare>> future : futures) {
+                final SolverResult<MagicSquare> chainResult = future.get();
+                if (result == null || chainResult.getFitness() < result.getFitness()) {
+                    result = chainResult;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Chain failed", e.getCause());
+        } finally {
+            finished = true;
+            executor.shutdownNow();
+        }
+
+        final long elapsed = System.currentTimeMillis() - startTime;
+        for (final Listener<MagicSquare> listener : listeners) {
+            listener.finished(result, elapsed);
+        }
+
+        return result;
+    }
+
+    private SolverResult<MagicSquare> anneal(final int chain) {
+        final RandomSource random = SplitMixRandom.forIndex(configuration.seed(), chain);
+        final MagicSquare initial = algorithm.randomIndividual(squareSize, random);
+        final int[] genes = initial.genes();
+        final MagicSquareSums sums = initial.sums();
+
+        int fitness = sums.fitness(k);
+        final int[] bestGenes = genes.clone();
+        final MagicSquareSums bestSums = sums.copy();
+        int bestFitness = fitness;
+        offerBest(bestGenes, bestSums, bestFitness, 0);
+
+        final long steps = configuration.steps();
+        long step = 0;
+        for (int run = 0; run <= configuration.restarts(); run++) {
+            if (run > 0) {
+                System.arraycopy(bestGenes, 0, genes, 0, genes.length);
+                sums.set(bestSums);
+                fitness = bestFitness;
+            }
+
+            double temperature = configuration.initialTemperature();
+            for (long i = 0; i < steps; i++, step++) {
+                if (fitness == 0 || finished || cancelled) {
+                    return resultOf(bestGenes, bestSums, bestFitness, step);
+                }
+                if (i % COOLING_INTERVAL == 0) {
+                    temperature = configuration.schedule().temperature(
+                            configuration.initialTemperature(),
+                            configuration.finalTemperature(),
+                            i,
+                            steps);
+                }
+                if (step % configuration.getN() == 0) {
+                    offerBest(bestGenes, bestSums, bestFitness, step);
+                    if (chain == 0) {
+                        reportProgress(step);
+                    }
+                }
+
+                final int a = random.nextInt(0, genes.length);
+                int b = random.nextInt(0, genes.length - 1);
+                if (b >= a) {
+                    b++;
+                }
+                sums.swap(genes, a, b);
+                final int candidate = sums.fitness(k);
+                final long delta = (long) candidate - fitness;
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    fitness = candidate;
+                    if (fitness < bestFitness) {
+                        bestFitness = fitness;
+                        System.arraycopy(genes, 0, bestGenes, 0, genes.length);
+                        bestSums.set(sums);
+                        if (fitness == 0) {
+                            finished = true;
+                        }
+                    }
+                } else {
+                    sums.swap(genes, a, b);
+                }
+            }
+            offerBest(bestGenes, bestSums, bestFitness, step);
+        }
+
+        return resultOf(bestGenes, bestSums, bestFitness, step);
+    }
+
+    private SolverResult<MagicSquare> resultOf(
+            final int[] genes, final MagicSquareSums sums, final int fitness, final long step) {
+        offerBest(genes, sums, fitness, step);
+        return new SolverResult<>(
+                new MagicSquare(genes.clone(), squareSize, sums.copy()), fitness, step, null);
+    }
+
+    private synchronized void offerBest(
+            final int[] genes, final MagicSquareSums sums, final int fitness, final long step) {
+        if (currentBestIndividual == null || fitness < currentBestIndividual.getFitness()) {
+            currentBestIndividual = new SolverResult<>(
+                    new MagicSquare(genes.clone(), squareSize, sums.copy()), fitness, step, null);
+        }
+    }
+
+    private void reportProgress(final long step) {
+        final SolverResult<MagicSquare> best = currentBestIndividual;
+        if (best == null || listeners.isEmpty()) {
+            return;
+        }
+
+        final long total = configuration.steps() * (configuration.restarts() + 1);
+        final int progress = (int) (100 * step / total);
+        final SolverResult<MagicSquare> result =
+                new SolverResult<>(best.getResult(), best.getFitness(), step, null);
+        for (final Listener<MagicSquare> listener : listeners) {
+            listener.progress(result, progress);
+        }
+    }
+}
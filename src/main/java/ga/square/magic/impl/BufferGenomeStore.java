@@ -0,0 +1,153 @@
+package ga.square.magic.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Genomes stored outside of the heap in direct or mapped buffers. A buffer
+ * holds at most 2 GB, so genomes are split into segments of whole genomes.
+ * Buffers use native byte order, so bulk copies are plain memory copies.
+ *
+ * Memory is released when buffers are collected, Java 7 has no way to free
+ * it explicitly.
+ */
+final class BufferGenomeStore extends GenomeStore {
+    /** Ints in the largest buffer. */
+    static final int MAX_SEGMENT_INTS = Integer.MAX_VALUE / 4;
+
+    private final int genomesPerSegment;
+    private IntBuffer[] segments;
+    private IntBuffer fitness;
+
+    private BufferGenomeStore(
+            final int capacity,
+            final int stride,
+            final int genomesPerSegment,
+            final IntBuffer[] segments,
+            final IntBuffer fitness) {
+        super(capacity, stride);
+        this.genomesPerSegment = genomesPerSegment;
+        this.segments = segments;
+        this.fitness = fitness;
+    }
+
+    /**
+     * @param segmentInts maximum number of ints in a segment
+     */
+    static BufferGenomeStore direct(final int capacity, final int stride, final int segmentInts) {
+        final int genomesPerSegment = genomesPerSegment(capacity, stride, segmentInts);
+        final IntBuffer[] segments = new IntBuffer[segmentsFor(capacity, genomesPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ints(ByteBuffer.allocateDirect(
+                    4 * stride * genomesIn(i, capacity, genomesPerSegment)));
+        }
+        return new BufferGenomeStore(
+                capacity, stride, genomesPerSegment, segments,
+                ints(ByteBuffer.allocateDirect(4 * capacity)));
+    }
+
+    /**
+     * @param segmentInts maximum number of ints in a segment
+     */
+    static BufferGenomeStore mapped(
+            final Path directory, final int capacity, final int stride, final int segmentInts)
+            throws IOException {
+        checkArgument(directory != null, "Illegal argument directory: null");
+
+        final int genomesPerSegment = genomesPerSegment(capacity, stride, segmentInts);
+        final IntBuffer[] segments = new IntBuffer[segmentsFor(capacity, genomesPerSegment)];
+        final Path file = Files.createTempFile(directory, "genomes", ".bin");
+        try (final FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE)) {
+            long position = 0;
+            for (int i = 0; i < segments.length; i++) {
+                final long bytes = 4L * stride * genomesIn(i, capacity, genomesPerSegment);
+                segments[i] = ints(channel.map(FileChannel.MapMode.READ_WRITE, position, bytes));
+                position += bytes;
+            }
+            final IntBuffer fitness =
+                    ints(channel.map(FileChannel.MapMode.READ_WRITE, position, 4L * capacity));
+            return new BufferGenomeStore(capacity, stride, genomesPerSegment, segments, fitness);
+        }
+    }
+
+    @Override
+    void read(final int index, final int[] genes, final int offset) {
+        genome(index).get(genes, offset, stride());
+    }
+
+    @Override
+    void write(final int index, final int[] genes, final int offset) {
+        genome(index).put(genes, offset, stride());
+    }
+
+    @Override
+    int fitness(final int index) {
+        return fitness.get(index);
+    }
+
+    @Override
+    void setFitness(final int index, final int fitness) {
+        this.fitness.put(index, fitness);
+    }
+
+    @Override
+    void copy(final int index, final GenomeStore target, final int targetIndex) {
+        if (target instanceof BufferGenomeStore) {
+            final IntBuffer source = genome(index);
+            source.limit(source.position() + stride());
+            ((BufferGenomeStore) target).genome(targetIndex).put(source);
+            target.setFitness(targetIndex, fitness(index));
+        } else {
+            super.copy(index, target, targetIndex);
+        }
+    }
+
+    @Override
+    public void close() {
+        segments = null;
+        fitness = null;
+    }
+
+    /**
+     * @return view of the segment positioned at the genome, views are
+     *         independent, so threads don't share positions
+     */
+    private IntBuffer genome(final int index) {
+        final IntBuffer view = segments[index / genomesPerSegment].duplicate();
+        view.position((index % genomesPerSegment) * stride());
+        return view;
+    }
+
+    private static IntBuffer ints(final ByteBuffer buffer) {
+        return buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static int genomesPerSegment(
+            final int capacity, final int stride, final int segmentInts) {
+        checkArgument(capacity >= 0, "Capacity should be non-negative");
+        checkArgument(stride > 0 && stride <= segmentInts, "Genome doesn't fit into a segment");
+        checkArgument(capacity <= MAX_SEGMENT_INTS, "Fitness doesn't fit into a buffer");
+        return segmentInts / stride;
+    }
+
+    private static int segmentsFor(final int capacity, final int genomesPerSegment) {
+        return (capacity + genomesPerSegment - 1) / genomesPerSegment;
+    }
+
+    private static int genomesIn(
+            final int segment, final int capacity, final int genomesPerSegment) {
+        return Math.min(genomesPerSegment, capacity - segment * genomesPerSegment);
+    }
+}
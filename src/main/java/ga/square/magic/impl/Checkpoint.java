@@ -0,0 +1,318 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+import ga.square.magic.SolverConfiguration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * State of evolution after some generation: population, generation counter,
+ * state of random numbers, progress of termination policies and
+ * configuration.
+ *
+ * In file the header is followed by fitness of all individuals and by their
+ * genes packed into 1, 2 or 4 bytes depending on size of square. File is
+ * written to a temporary file first and then atomically moved over the
+ * previous checkpoint, so an interrupted write keeps the previous one.
+ */
+public class Checkpoint {
+    private static final int MAGIC = 0x4d534741;
+    private static final int VERSION = 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SolverConfiguration configuration;
+    private final int squareSize;
+    private final long generation;
+    private final long randomState;
+    private final int bestFitness;
+    private final long stagnation;
+    private final int restarts;
+    private final Population<MagicSquare> population;
+
+    /**
+     * Checkpoint of evolution which hasn't stalled and wasn't restarted.
+     *
+     * @param population population which isn't changed afterwards
+     * @param randomState state of random numbers used by the solver thread
+     */
+    public Checkpoint(
+            final SolverConfiguration configuration,
+            final int squareSize,
+            final long generation,
+            final long randomState,
+            final Population<MagicSquare> population) {
+        this(configuration, squareSize, generation, randomState,
+                Integer.MAX_VALUE, 0, 0, population);
+    }
+
+    /**
+     * @param population population which isn't changed afterwards
+     * @param randomState state of random numbers used by the solver thread
+     * @param bestFitness best fitness since the last restart,
+     *                    {@link Integer#MAX_VALUE} if it is unknown
+     * @param stagnation generations without improvement of the best fitness
+     * @param restarts restarts of evolution so far
+     */
+    public Checkpoint(
+            final SolverConfiguration configuration,
+            final int squareSize,
+            final long generation,
+            final long randomState,
+            final int bestFitness,
+            final long stagnation,
+            final int restarts,
+            final Population<MagicSquare> population) {
+        checkArgument(configuration != null, "Illegal argument configuration: null");
+        checkArgument(population != null, "Illegal argument population: null");
+        checkArgument(stagnation >= 0, "Stagnation should be non-negative");
+        checkArgument(restarts >= 0, "Number of restarts should be non-negative");
+        this.configuration = configuration;
+        this.squareSize = squareSize;
+        this.generation = generation;
+        this.randomState = randomState;
+        this.bestFitness = bestFitness;
+        this.stagnation = stagnation;
+        this.restarts = restarts;
+        this.population = population;
+    }
+
+    public SolverConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public long getRandomState() {
+        return randomState;
+    }
+
+    public int getBestFitness() {
+        return bestFitness;
+    }
+
+    public long getStagnation() {
+        return stagnation;
+    }
+
+    public int getRestarts() {
+        return restarts;
+    }
+
+    public Population<MagicSquare> getPopulation() {
+        return population;
+    }
+
+    public void write(final Path path) throws IOException {
+        checkArgument(path != null, "Illegal argument path: null");
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (final FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            writeHeader(buffer);
+
+            for (int i = 0; i < population.size(); i++) {
+                flushIfFull(channel, buffer, 4);
+                buffer.putInt(population.fitness(i));
+            }
+
+            final int geneBytes = geneBytes(squareSize);
+            for (int i = 0; i < population.size(); i++) {
+                for (final int gene : population.individual(i).genes()) {
+                    flushIfFull(channel, buffer, geneBytes);
+                    putGene(buffer, gene, geneBytes);
+                }
+            }
+
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        Files.move(
+                temporary,
+                path,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static Checkpoint read(final Path path) throws IOException {
+        checkArgument(path != null, "Illegal argument path: null");
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION) {
+                throw new IOException("Not a checkpoint: " + path);
+            }
+
+            final int squareSize = buffer.getInt();
+            final long generation = buffer.getLong();
+            final long randomState = buffer.getLong();
+            final int bestFitness = buffer.getInt();
+            final long stagnation = buffer.getLong();
+            final int restarts = buffer.getInt();
+            final SolverConfiguration configuration = readConfiguration(buffer);
+
+            final int size = buffer.getInt();
+            final int[] fitness = new int[size];
+            for (int i = 0; i < size; i++) {
+                fitness[i] = buffer.getInt();
+            }
+
+            final int geneBytes = geneBytes(squareSize);
+            final Population<MagicSquare> population = new Population<>(size);
+            for (int i = 0; i < size; i++) {
+                final int[] genes = new int[squareSize * squareSize];
+                for (int j = 0; j < genes.length; j++) {
+                    genes[j] = getGene(buffer, geneBytes);
+                }
+                population.add(new MagicSquare(genes, squareSize), fitness[i]);
+            }
+
+            return new Checkpoint(
+                    configuration,
+                    squareSize,
+                    generation,
+                    randomState,
+                    bestFitness,
+                    stagnation,
+                    restarts,
+                    population);
+        }
+    }
+
+    private void writeHeader(final ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(squareSize);
+        buffer.putLong(generation);
+        buffer.putLong(randomState);
+        buffer.putInt(bestFitness);
+        buffer.putLong(stagnation);
+        buffer.putInt(restarts);
+
+        buffer.putLong(configuration.maxGenerations());
+        buffer.putLong(configuration.populationSize());
+        buffer.putLong(configuration.getN());
+        buffer.putDouble(configuration.crossoverProbability());
+        buffer.putDouble(configuration.mutationProbability());
+        buffer.putInt(configuration.parallelism());
+        buffer.putLong(configuration.seed());
+        final Path checkpointPath = configuration.checkpointPath();
+        final byte[] path = (checkpointPath == null)
+                ? new byte[0]
+                : checkpointPath.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.putLong(configuration.checkpointInterval());
+        buffer.putInt(path.length);
+        buffer.put(path);
+        buffer.putDouble(configuration.refinementFraction());
+        buffer.putInt(configuration.refinementBudget());
+        buffer.put((byte) (configuration.rejectDuplicates() ? 1 : 0));
+        buffer.putInt(configuration.fitnessCacheSize());
+        buffer.putInt(configuration.fitnessCachePolicy().ordinal());
+        buffer.putLong(configuration.timeBudget());
+        buffer.putLong(configuration.stagnationLimit());
+        buffer.putDouble(configuration.diversityThreshold());
+        buffer.putInt(configuration.restarts());
+        buffer.putDouble(configuration.eliteFraction());
+
+        buffer.putInt(population.size());
+    }
+
+    private static SolverConfiguration readConfiguration(final ByteBuffer buffer) {
+        final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                .maxGenerations(buffer.getLong())
+                .populationSize(buffer.getLong())
+                .N(buffer.getLong())
+                .crossoverProbability(buffer.getDouble())
+                .mutationProbability(buffer.getDouble())
+                .parallelism(buffer.getInt())
+                .seed(buffer.getLong());
+        final long checkpointInterval = buffer.getLong();
+        final byte[] path = new byte[buffer.getInt()];
+        buffer.get(path);
+        if (path.length > 0) {
+            builder.checkpoint(
+                    Paths.get(new String(path, StandardCharsets.UTF_8)),
+                    checkpointInterval);
+        }
+        builder.refinement(buffer.getDouble(), buffer.getInt());
+        builder.rejectDuplicates(buffer.get() != 0);
+        builder.fitnessCache(
+                buffer.getInt(), SolverConfiguration.CachePolicy.values()[buffer.getInt()]);
+        builder.timeBudget(buffer.getLong());
+        builder.stagnationLimit(buffer.getLong());
+        builder.diversityThreshold(buffer.getDouble());
+        builder.restarts(buffer.getInt(), buffer.getDouble());
+        return builder.build();
+    }
+
+    private static int geneBytes(final int squareSize) {
+        final long maxGene = (long) squareSize * squareSize;
+        if (maxGene <= 0xff) {
+            return 1;
+        } else if (maxGene <= 0xffff) {
+            return 2;
+        } else {
+            return 4;
+        }
+    }
+
+    private static void putGene(final ByteBuffer buffer, final int gene, final int geneBytes) {
+        if (geneBytes == 1) {
+            buffer.put((byte) gene);
+        } else if (geneBytes == 2) {
+            buffer.putShort((short) gene);
+        } else {
+            buffer.putInt(gene);
+        }
+    }
+
+    private static int getGene(final ByteBuffer buffer, final int geneBytes) {
+        if (geneBytes == 1) {
+            return buffer.get() & 0xff;
+        } else if (geneBytes == 2) {
+            return buffer.getShort() & 0xffff;
+        } else {
+            return buffer.getInt();
+        }
+    }
+
+    private static void flushIfFull(
+            final FileChannel channel, final ByteBuffer buffer, final int bytes)
+            throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(final FileChannel channel, final ByteBuffer buffer)
+            throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
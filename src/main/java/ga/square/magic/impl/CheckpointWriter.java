@@ -0,0 +1,68 @@
+package ga.square.magic.impl;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes checkpoints on a background thread, so the generation loop only
+ * pays for a snapshot of the population. If checkpoints are produced faster
+ * than they are written, only the latest pending one is written.
+ */
+final class CheckpointWriter {
+    private final Path path;
+    private final ExecutorService executor;
+    private final AtomicReference<Checkpoint> pending;
+
+    private volatile Throwable failure;
+
+    CheckpointWriter(final Path path) {
+        this.path = path;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.pending = new AtomicReference<>();
+    }
+
+    void write(final Checkpoint checkpoint) {
+        if (pending.getAndSet(checkpoint) == null) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Checkpoint latest = pending.getAndSet(null);
+                    try {
+                        latest.write(path);
+                    } catch (Throwable e) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until pending checkpoints are written.
+     *
+     * @return first failure of writing a checkpoint, null if all of them
+     *         were written
+     */
+    Throwable close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,131 @@
+package ga.square.magic.impl;
+
+import java.util.Arrays;
+
+/**
+ * CLOCK approximation of LRU: entries are kept in a ring with a reference
+ * bit set on every hit, the hand evicts the first entry without the bit and
+ * clears bits it passes. Slots of the ring are found through an
+ * open-addressing table, so nothing is allocated after construction.
+ */
+final class ClockFitnessCache extends FitnessCache {
+    private static final int FREE = -1;
+
+    private final long[] hashes;
+    private final int[] fitness;
+    private final boolean[] referenced;
+    /** Linear probing table of ring slots, FREE if empty. */
+    private final int[] table;
+    private int size;
+    private int hand;
+
+    ClockFitnessCache(final int capacity) {
+        this.hashes = new long[capacity];
+        this.fitness = new int[capacity];
+        this.referenced = new boolean[capacity];
+        int tableSize = 16;
+        while (tableSize < 2 * capacity) {
+            tableSize <<= 1;
+        }
+        this.table = new int[tableSize];
+        Arrays.fill(table, FREE);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    long lookup(final long hash) {
+        final int position = find(hash);
+        if (position < 0) {
+            return MISS;
+        }
+        final int slot = table[position];
+        referenced[slot] = true;
+        return fitness[slot];
+    }
+
+    @Override
+    void store(final long hash, final int value) {
+        final int position = find(hash);
+        if (position >= 0) {
+            fitness[table[position]] = value;
+            return;
+        }
+
+        final int slot;
+        if (size < hashes.length) {
+            slot = size++;
+        } else {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % hashes.length;
+            }
+            slot = hand;
+            hand = (hand + 1) % hashes.length;
+            remove(find(hashes[slot]));
+        }
+
+        hashes[slot] = hash;
+        fitness[slot] = value;
+        referenced[slot] = false;
+        insert(hash, slot);
+    }
+
+    /**
+     * @return position of the hash in the table, -1 if it isn't cached
+     */
+    private int find(final long hash) {
+        final int mask = table.length - 1;
+        for (int i = indexOf(hash, mask); ; i = (i + 1) & mask) {
+            final int slot = table[i];
+            if (slot == FREE) {
+                return -1;
+            } else if (hashes[slot] == hash) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(final long hash, final int slot) {
+        final int mask = table.length - 1;
+        int i = indexOf(hash, mask);
+        while (table[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot;
+    }
+
+    /**
+     * Frees the position and shifts back following entries of the probe
+     * sequence, so lookups don't need tombstones.
+     */
+    private void remove(final int position) {
+        final int mask = table.length - 1;
+        int free = position;
+        int i = position;
+        while (true) {
+            i = (i + 1) & mask;
+            final int slot = table[i];
+            if (slot == FREE) {
+                table[free] = FREE;
+                return;
+            }
+            final int home = indexOf(hashes[slot], mask);
+            final boolean reachable = (free <= i)
+                    ? (free < home && home <= i)
+                    : (free < home || home <= i);
+            if (!reachable) {
+                table[free] = slot;
+                free = i;
+            }
+        }
+    }
+
+    private static int indexOf(final long hash, final int mask) {
+        final long mixed = hash * 0x9e3779b97f4a7c15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,155 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.GeneticAlgorithm;
+import ga.square.magic.Solver;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Builds a magic square directly in O(n^2): Siamese method for odd sizes,
+ * LUX method for singly even sizes and complement pattern for doubly even
+ * sizes. There is no magic square of size 2.
+ *
+ * Squares of odd and doubly even sizes are associative, i.e. cells
+ * symmetric about the center sum up to n^2 + 1, so their symmetry fitness is
+ * zero as well. Squares of singly even sizes aren't.
+ */
+public class ConstructiveSolver
+        implements Solver<MagicSquare, GeneticAlgorithm<MagicSquare>> {
+    private final GeneticAlgorithm<MagicSquare> algorithm;
+    private final int squareSize;
+
+    /**
+     * @param algorithm algorithm evaluating the constructed square
+     */
+    public ConstructiveSolver(
+            final GeneticAlgorithm<MagicSquare> algorithm,
+            final int squareSize) {
+        checkArgument(algorithm != null, "Illegal argument algorithm: null");
+        checkArgument(
+                isConstructible(squareSize),
+                "There is no magic square of size " + squareSize);
+        this.algorithm = algorithm;
+        this.squareSize = squareSize;
+    }
+
+    public static boolean isConstructible(final int squareSize) {
+        return squareSize > 0 && squareSize != 2;
+    }
+
+    @Override
+    public SolverResult<MagicSquare> solve() {
+        final MagicSquare square = construct(squareSize);
+        return new SolverResult<>(square, algorithm.fitnessOf(square), 0, null);
+    }
+
+    public static MagicSquare construct(final int squareSize) {
+        checkArgument(
+                isConstructible(squareSize),
+                "There is no magic square of size " + squareSize);
+
+        final int[] genes;
+        if (squareSize % 2 == 1) {
+            genes = siamese(squareSize);
+        } else if (squareSize % 4 == 0) {
+            genes = doublyEven(squareSize);
+        } else {
+            genes = lux(squareSize);
+        }
+        return new MagicSquare(genes, squareSize);
+    }
+
+    /**
+     * Numbers are placed diagonally up and right starting from the middle of
+     * the top row, stepping down when the next cell is already filled.
+     */
+    private static int[] siamese(final int size) {
+        final int[] genes = new int[size * size];
+        int x = size / 2;
+        int y = 0;
+        for (int value = 1; value <= genes.length; value++) {
+            genes[y * size + x] = value;
+
+            final int nextX = (x + 1 == size) ? 0 : x + 1;
+            final int nextY = (y == 0) ? size - 1 : y - 1;
+            if (genes[nextY * size + nextX] == 0) {
+                x = nextX;
+                y = nextY;
+            } else {
+                y = (y + 1 == size) ? 0 : y + 1;
+            }
+        }
+        return genes;
+    }
+
+    /**
+     * Numbers are written in order, cells on diagonals of every 4x4 block are
+     * replaced with their complements to n^2 + 1.
+     */
+    private static int[] doublyEven(final int size) {
+        final int[] genes = new int[size * size];
+        final int complement = genes.length + 1;
+        for (int y = 0; y < size; y++) {
+            final int blockY = y % 4;
+            for (int x = 0; x < size; x++) {
+                final int blockX = x % 4;
+                final int i = y * size + x;
+                genes[i] = (blockX == blockY || blockX + blockY == 3)
+                        ? complement - (i + 1)
+                        : i + 1;
+            }
+        }
+        return genes;
+    }
+
+    /**
+     * Conway's LUX method: every cell of a Siamese square of size 2m + 1 is
+     * expanded into a 2x2 block filled in L, U or X order. First m + 1 rows
+     * are L, the next one is U and the remaining m - 1 rows are X, with the
+     * middle U swapped with the L above it.
+     */
+    private static int[] lux(final int size) {
+        final int half = size / 2;
+        final int m = (half - 1) / 2;
+        final int[] base = siamese(half);
+        final int[] genes = new int[size * size];
+
+        for (int y = 0; y < half; y++) {
+            for (int x = 0; x < half; x++) {
+                final int offset = 4 * (base[y * half + x] - 1);
+
+                final boolean l = (y <= m) != (x == m && (y == m || y == m + 1));
+                final boolean u = !l && y <= m + 1;
+
+                final int topLeft;
+                final int topRight;
+                final int bottomLeft;
+                final int bottomRight;
+                if (l) {
+                    topLeft = 4;
+                    topRight = 1;
+                    bottomLeft = 2;
+                    bottomRight = 3;
+                } else if (u) {
+                    topLeft = 1;
+                    topRight = 4;
+                    bottomLeft = 2;
+                    bottomRight = 3;
+                } else {
+                    topLeft = 1;
+                    topRight = 4;
+                    bottomLeft = 3;
+                    bottomRight = 2;
+                }
+
+                final int top = 2 * y * size + 2 * x;
+                final int bottom = top + size;
+                genes[top] = offset + topLeft;
+                genes[top + 1] = offset + topRight;
+                genes[bottom] = offset + bottomLeft;
+                genes[bottom + 1] = offset + bottomRight;
+            }
+        }
+        return genes;
+    }
+}
@@ -0,0 +1,67 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.GeneticAlgorithm;
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Returns a constructed square if it is optimal for the given algorithm,
+ * e.g. when any magic square is fine or the square of this size is
+ * constructed symmetric, and evolves one with {@link MagicSquareSolver}
+ * otherwise.
+ */
+public class DispatchingSolver
+        implements Solver<MagicSquare, GeneticAlgorithm<MagicSquare>> {
+    private final GeneticAlgorithm<MagicSquare> algorithm;
+    private final int squareSize;
+    private final MagicSquareSolver evolution;
+    private final List<Listener<MagicSquare>> listeners;
+
+    public DispatchingSolver(
+            final GeneticAlgorithm<MagicSquare> algorithm,
+            final int squareSize,
+            final SolverConfiguration configuration) {
+        this.algorithm = algorithm;
+        this.squareSize = squareSize;
+        this.evolution = new MagicSquareSolver(algorithm, squareSize, configuration);
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public void addListener(final Listener<MagicSquare> listener) {
+        checkArgument(listener != null, "Illegal argument listener: null");
+        listeners.add(listener);
+        evolution.addListener(listener);
+    }
+
+    public void removeListener(final Listener<MagicSquare> listener) {
+        listeners.remove(listener);
+        evolution.removeListener(listener);
+    }
+
+    public void cancel() {
+        evolution.cancel();
+    }
+
+    @Override
+    public SolverResult<MagicSquare> solve() {
+        if (ConstructiveSolver.isConstructible(squareSize)) {
+            final long startTime = System.currentTimeMillis();
+            final SolverResult<MagicSquare> result =
+                    new ConstructiveSolver(algorithm, squareSize).solve();
+            if (result.getFitness() == 0) {
+                final long elapsed = System.currentTimeMillis() - startTime;
+                for (final Listener<MagicSquare> listener : listeners) {
+                    listener.finished(result, elapsed);
+                }
+                return result;
+            }
+        }
+
+        return evolution.solve();
+    }
+}
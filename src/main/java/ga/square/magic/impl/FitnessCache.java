@@ -0,0 +1,69 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.SolverConfiguration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded map from genome hash to fitness, so squares which were already
+ * seen aren't evaluated again.
+ *
+ * Entries are keyed only by the 64-bit {@link GenomeHash}, which is linear
+ * in genes, and genes aren't stored: squares with equal hashes are
+ * considered equal, so a collision silently returns fitness of another
+ * square. Methods are synchronized, the solver calls them from a single
+ * thread.
+ */
+public abstract class FitnessCache {
+    /** Result of {@link #get(long)} for a hash which isn't cached. */
+    static final long MISS = Long.MIN_VALUE;
+
+    private long hits;
+    private long misses;
+
+    public static FitnessCache of(
+            final SolverConfiguration.CachePolicy policy, final int capacity) {
+        checkArgument(policy != null, "Illegal argument policy: null");
+        checkArgument(capacity > 0, "Capacity should be positive");
+
+        switch (policy) {
+            case LRU:
+                return new LruFitnessCache(capacity);
+            case CLOCK:
+                return new ClockFitnessCache(capacity);
+            default:
+                throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+    }
+
+    /**
+     * @return cached fitness or {@link #MISS}
+     */
+    final synchronized long get(final long hash) {
+        final long fitness = lookup(hash);
+        if (fitness == MISS) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return fitness;
+    }
+
+    final synchronized void put(final long hash, final int fitness) {
+        store(hash, fitness);
+    }
+
+    public final synchronized long hits() {
+        return hits;
+    }
+
+    public final synchronized long misses() {
+        return misses;
+    }
+
+    public abstract int size();
+
+    abstract long lookup(long hash);
+
+    abstract void store(long hash, int fitness);
+}
@@ -0,0 +1,60 @@
+package ga.square.magic.impl;
+
+/**
+ * 64-bit hash of genes: sum of genes multiplied by pseudo-random odd
+ * weights of their positions. Swap of two genes changes exactly two terms,
+ * so the hash is updated in O(1), and the full hash is a single
+ * multiply-add per gene without dependency between multiplications.
+ *
+ * Weights are derived from positions by a mixing function and cached, so
+ * the same genes always get the same hash.
+ */
+final class GenomeHash {
+    private static volatile long[] weights = weightsOf(0, new long[0]);
+
+    private GenomeHash() {}
+
+    static long of(final int[] genes) {
+        final long[] w = weights(genes.length);
+        long hash = 0;
+        for (int i = 0; i < genes.length; i++) {
+            hash += genes[i] * w[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Hash of genes after swap of the given genes at positions i and j.
+     */
+    static long swap(
+            final long hash, final int i, final int ithGene, final int j, final int jthGene) {
+        final long[] w = weights(Math.max(i, j) + 1);
+        final long delta = (long) jthGene - ithGene;
+        return hash + delta * (w[i] - w[j]);
+    }
+
+    private static long[] weights(final int length) {
+        final long[] current = weights;
+        if (current.length >= length) {
+            return current;
+        }
+        synchronized (GenomeHash.class) {
+            if (weights.length < length) {
+                weights = weightsOf(length, weights);
+            }
+            return weights;
+        }
+    }
+
+    private static long[] weightsOf(final int length, final long[] previous) {
+        final long[] result = new long[Math.max(length, 2 * previous.length)];
+        System.arraycopy(previous, 0, result, 0, previous.length);
+        for (int i = previous.length; i < result.length; i++) {
+            long z = (i + 1) * 0x9e3779b97f4a7c15L;
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            result[i] = (z ^ (z >>> 31)) | 1;
+        }
+        return result;
+    }
+}
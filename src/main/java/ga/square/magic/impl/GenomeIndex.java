@@ -0,0 +1,96 @@
+package ga.square.magic.impl;
+
+import java.util.Arrays;
+
+/**
+ * Set of genome hashes with open addressing, so lookups don't box or
+ * allocate. Could be read concurrently while it isn't modified.
+ */
+final class GenomeIndex {
+    private static final long EMPTY = 0;
+
+    private long[] table;
+    private int size;
+    private boolean containsEmpty;
+
+    GenomeIndex(final int expectedSize) {
+        this.table = new long[capacityFor(expectedSize)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(final long hash) {
+        if (hash == EMPTY) {
+            return containsEmpty;
+        }
+        final int mask = table.length - 1;
+        for (int i = indexOf(hash, mask); ; i = (i + 1) & mask) {
+            final long value = table[i];
+            if (value == hash) {
+                return true;
+            } else if (value == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return false if the hash was already present
+     */
+    boolean add(final long hash) {
+        if (hash == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        if (2 * (size + 1) > table.length) {
+            rehash(2 * table.length);
+        }
+        final int mask = table.length - 1;
+        for (int i = indexOf(hash, mask); ; i = (i + 1) & mask) {
+            final long value = table[i];
+            if (value == hash) {
+                return false;
+            } else if (value == EMPTY) {
+                table[i] = hash;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        containsEmpty = false;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] previous = table;
+        table = new long[capacity];
+        size = containsEmpty ? 1 : 0;
+        for (final long hash : previous) {
+            if (hash != EMPTY) {
+                add(hash);
+            }
+        }
+    }
+
+    private static int indexOf(final long hash, final int mask) {
+        final long mixed = hash * 0x9e3779b97f4a7c15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        int capacity = 16;
+        while (capacity < 2 * expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
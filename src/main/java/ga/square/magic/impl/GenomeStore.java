@@ -0,0 +1,92 @@
+package ga.square.magic.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Fixed number of genomes of the same length together with their fitness,
+ * accessed by index of genome. Genomes are copied in and out of int arrays,
+ * so operators work on arrays regardless of where genomes are stored.
+ *
+ * Different genomes could be read and written by different threads
+ * concurrently.
+ */
+abstract class GenomeStore implements Closeable {
+    private final int capacity;
+    private final int stride;
+
+    GenomeStore(final int capacity, final int stride) {
+        checkArgument(capacity >= 0, "Capacity should be non-negative");
+        checkArgument(stride > 0, "Length of genome should be positive");
+        this.capacity = capacity;
+        this.stride = stride;
+    }
+
+    /**
+     * Genomes in an array on the heap.
+     */
+    static GenomeStore heap(final int capacity, final int stride) {
+        return new HeapGenomeStore(capacity, stride);
+    }
+
+    /**
+     * Genomes in direct buffers outside of the heap, limited by the maximum
+     * size of direct memory of JVM.
+     */
+    static GenomeStore direct(final int capacity, final int stride) {
+        return BufferGenomeStore.direct(capacity, stride, BufferGenomeStore.MAX_SEGMENT_INTS);
+    }
+
+    /**
+     * Genomes in a temporary file in the given directory mapped to memory,
+     * paged out by the operating system when memory is short. The file is
+     * deleted right after it is mapped.
+     */
+    static GenomeStore mapped(final Path directory, final int capacity, final int stride)
+            throws IOException {
+        return BufferGenomeStore.mapped(
+                directory, capacity, stride, BufferGenomeStore.MAX_SEGMENT_INTS);
+    }
+
+    final int capacity() {
+        return capacity;
+    }
+
+    final int stride() {
+        return stride;
+    }
+
+    /**
+     * Copies genome to genes starting from the offset.
+     */
+    abstract void read(int index, int[] genes, int offset);
+
+    /**
+     * Replaces genome with genes starting from the offset.
+     */
+    abstract void write(int index, int[] genes, int offset);
+
+    abstract int fitness(int index);
+
+    abstract void setFitness(int index, int fitness);
+
+    /**
+     * Copies genome and fitness to a genome of the target store with the
+     * same length of genomes, which could be this store.
+     */
+    void copy(final int index, final GenomeStore target, final int targetIndex) {
+        final int[] genes = new int[stride];
+        read(index, genes, 0);
+        target.write(targetIndex, genes, 0);
+        target.setFitness(targetIndex, fitness(index));
+    }
+
+    /**
+     * Releases storage, genomes shouldn't be accessed afterwards.
+     */
+    @Override
+    public void close() throws IOException {}
+}
@@ -0,0 +1,52 @@
+package ga.square.magic.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Genomes stored contiguously in one array with the given stride.
+ */
+final class HeapGenomeStore extends GenomeStore {
+    private final int[] genes;
+    private final int[] fitness;
+
+    HeapGenomeStore(final int capacity, final int stride) {
+        super(capacity, stride);
+        checkArgument(
+                (long) capacity * stride <= Integer.MAX_VALUE,
+                "Genomes don't fit into an array");
+        this.genes = new int[capacity * stride];
+        this.fitness = new int[capacity];
+    }
+
+    @Override
+    void read(final int index, final int[] genes, final int offset) {
+        System.arraycopy(this.genes, index * stride(), genes, offset, stride());
+    }
+
+    @Override
+    void write(final int index, final int[] genes, final int offset) {
+        System.arraycopy(genes, offset, this.genes, index * stride(), stride());
+    }
+
+    @Override
+    int fitness(final int index) {
+        return fitness[index];
+    }
+
+    @Override
+    void setFitness(final int index, final int fitness) {
+        this.fitness[index] = fitness;
+    }
+
+    @Override
+    void copy(final int index, final GenomeStore target, final int targetIndex) {
+        if (target instanceof HeapGenomeStore) {
+            final HeapGenomeStore heap = (HeapGenomeStore) target;
+            System.arraycopy(
+                    genes, index * stride(), heap.genes, targetIndex * stride(), stride());
+            heap.fitness[targetIndex] = fitness[index];
+        } else {
+            super.copy(index, target, targetIndex);
+        }
+    }
+}
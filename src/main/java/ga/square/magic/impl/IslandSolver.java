@@ -0,0 +1,310 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.GeneticAlgorithm;
+import ga.square.magic.Population;
+import ga.square.magic.RandomSource;
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.SplitMixRandom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Island model: several independent populations evolve on separate threads
+ * and periodically send their best individuals to other islands, where they
+ * replace the worst ones. Evolution of all islands stops as soon as any of
+ * them finds a solution.
+ *
+ * Each island is configured by the same solver configuration and evolves
+ * with the same genetic algorithm, offspring of an island are produced on
+ * its own thread. Random numbers of an island are derived from the
+ * configured seed and index of the island.
+ */
+public class IslandSolver
+        implements Solver<MagicSquare, GeneticAlgorithm<MagicSquare>> {
+    /**
+     * Islands receiving migrants from an island.
+     */
+    public enum Topology {
+        /** Next island, the last one sends to the first. */
+        RING,
+        /** All other islands. */
+        FULLY_CONNECTED,
+        /** Random other island chosen on every migration. */
+        RANDOM
+    }
+
+    private static class Migrant {
+        private final MagicSquare individual;
+        private final int fitness;
+
+        private Migrant(final MagicSquare individual, final int fitness) {
+            this.individual = individual;
+            this.fitness = fitness;
+        }
+    }
+
+    private final GeneticAlgorithm<MagicSquare> algorithm;
+    private final int squareSize;
+    private final SolverConfiguration configuration;
+    private final int islands;
+    private final long migrationInterval;
+    private final int migrants;
+    private final Topology topology;
+    private final List<Listener<MagicSquare>> listeners;
+
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    private volatile SolverResult<MagicSquare> currentBestIndividual;
+
+    /**
+     * @param configuration configuration of every island
+     * @param islands number of islands
+     * @param migrationInterval generations between migrations
+     * @param migrants number of best individuals each island sends
+     * @param topology islands receiving migrants
+     */
+    public IslandSolver(
+            final GeneticAlgorithm<MagicSquare> algorithm,
+            final int squareSize,
+            final SolverConfiguration configuration,
+            final int islands,
+            final long migrationInterval,
+            final int migrants,
+            final Topology topology) {
+        checkArgument(algorithm != null, "Illegal argument algorithm: null");
+        checkArgument(configuration != null, "Illegal argument configuration: null");
+        checkArgument(topology != null, "Illegal argument topology: null");
+        checkArgument(islands > 0, "There should be at least one island");
+        checkArgument(migrationInterval > 0, "Migration interval should be positive");
+        checkArgument(migrants >= 0, "Number of migrants should be non-negative");
+        checkArgument(
+                migrants < configuration.populationSize(),
+                "Number of migrants should be smaller than population");
+
+        this.algorithm = algorithm;
+        this.squareSize = squareSize;
+        this.configuration = configuration;
+        this.islands = islands;
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        this.topology = topology;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Progress is reported by the first island and contains the best
+     * individual found by all islands so far, without population.
+     */
+    public void addListener(final Listener<MagicSquare> listener) {
+        checkArgument(listener != null, "Illegal argument listener: null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener<MagicSquare> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops evolution of all islands after their current generation.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public SolverResult<MagicSquare> solve() {
+        finished = false;
+        currentBestIndividual = null;
+
+        final List<Queue<Migrant>> inboxes = new ArrayList<>(islands);
+        for (int i = 0; i < islands; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<Migrant>());
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(islands);
+        final List<Future<SolverResult<MagicSquare>>> futures = new ArrayList<>(islands);
+        SolverResult<MagicSquare> result = null;
+        try {
+            for (int i = 0; i < islands; i++) {
+                final int island = i;
+                futures.add(executor.submit(new Callable<SolverResult<MagicSquare>>() {
+                    @Override
+                    public SolverResult<MagicSquare> call() {
+                        return evolveIsland(island, inboxes);
+                    }
+                }));
+            }
+
+            for (final Future<SolverResult<MagicSquare>> future : futures) {
+                final SolverResult<MagicSquare> islandResult = future.get();
+                if (result == null || islandResult.getFitness() < result.getFitness()) {
+                    result = islandResult;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Island failed", e.getCause());
+        } finally {
+            finished = true;
+            executor.shutdownNow();
+        }
+
+        final long elapsed = System.currentTimeMillis() - startTime;
+        for (final Listener<MagicSquare> listener : listeners) {
+            listener.finished(result, elapsed);
+        }
+
+        return result;
+    }
+
+    private SolverResult<MagicSquare> evolveIsland(
+            final int island, final List<Queue<Migrant>> inboxes) {
+        final MagicSquareSolver solver =
+                new MagicSquareSolver(algorithm, squareSize, configuration);
+        final RandomSource random =
+                SplitMixRandom.forIndex(configuration.seed(), island);
+        Population<MagicSquare> population = solver.generateInitialPopulation(random);
+        final Population<MagicSquare> children =
+                new Population<>(population.size() / 2);
+        offerBestIndividual(population, 0);
+
+        long t = 0;
+        while (!finished
+                && !cancelled
+                && population.bestFitness() != 0
+                && t < configuration.maxGenerations()) {
+            if (island == 0 && t % configuration.getN() == 0) {
+                reportProgress(t);
+            }
+
+            t += 1;
+
+            population = solver.evolve(population, children, null, random);
+
+            if (t % migrationInterval == 0) {
+                emigrate(island, population, inboxes, random);
+                immigrate(inboxes.get(island), population);
+                offerBestIndividual(population, t);
+            }
+        }
+
+        if (population.bestFitness() == 0) {
+            finished = true;
+        }
+        offerBestIndividual(population, t);
+
+        return new SolverResult<>(
+                population.best(), population.bestFitness(), t, population);
+    }
+
+    private void emigrate(
+            final int island,
+            final Population<MagicSquare> population,
+            final List<Queue<Migrant>> inboxes,
+            final RandomSource random) {
+        final List<Migrant> emigrants = bestOf(population, migrants);
+        for (final int target : targetsOf(island, islands, topology, random)) {
+            inboxes.get(target).addAll(emigrants);
+        }
+    }
+
+    /**
+     * Migrants replace the worst individuals if they are better.
+     */
+    private void immigrate(
+            final Queue<Migrant> inbox, final Population<MagicSquare> population) {
+        Migrant migrant = inbox.poll();
+        while (migrant != null) {
+            int worst = 0;
+            for (int i = 1; i < population.size(); i++) {
+                if (population.fitness(i) > population.fitness(worst)) {
+                    worst = i;
+                }
+            }
+            if (migrant.fitness < population.fitness(worst)) {
+                population.set(worst, migrant.individual, migrant.fitness);
+            }
+
+            migrant = inbox.poll();
+        }
+    }
+
+    private static List<Migrant> bestOf(
+            final Population<MagicSquare> population, final int count) {
+        final List<Migrant> result = new ArrayList<>(count);
+        final boolean[] chosen = new boolean[population.size()];
+        for (int m = 0; m < count; m++) {
+            int best = -1;
+            for (int i = 0; i < population.size(); i++) {
+                if (!chosen[i]
+                        && (best < 0 || population.fitness(i) < population.fitness(best))) {
+                    best = i;
+                }
+            }
+            chosen[best] = true;
+            result.add(new Migrant(population.individual(best), population.fitness(best)));
+        }
+        return result;
+    }
+
+    static List<Integer> targetsOf(
+            final int island,
+            final int islands,
+            final Topology topology,
+            final RandomSource random) {
+        final List<Integer> result = new ArrayList<>();
+        if (islands < 2) {
+            return result;
+        }
+
+        switch (topology) {
+            case RING:
+                result.add((island + 1) % islands);
+                break;
+            case FULLY_CONNECTED:
+                for (int i = 0; i < islands; i++) {
+                    if (i != island) {
+                        result.add(i);
+                    }
+                }
+                break;
+            case RANDOM:
+                final int target = random.nextInt(0, islands - 1);
+                result.add((target < island) ? target : target + 1);
+                break;
+        }
+        return result;
+    }
+
+    private synchronized void offerBestIndividual(
+            final Population<MagicSquare> population, final long t) {
+        if (currentBestIndividual == null
+                || population.bestFitness() < currentBestIndividual.getFitness()) {
+            currentBestIndividual = new SolverResult<>(
+                    population.best(), population.bestFitness(), t, null);
+        }
+    }
+
+    private void reportProgress(final long t) {
+        final SolverResult<MagicSquare> best = currentBestIndividual;
+        if (best == null || listeners.isEmpty()) {
+            return;
+        }
+
+        final int progress = (int) (100 * t / configuration.maxGenerations());
+        final SolverResult<MagicSquare> result =
+                new SolverResult<>(best.getResult(), best.getFitness(), t, null);
+        for (final Listener<MagicSquare> listener : listeners) {
+            listener.progress(result, progress);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ga.square.magic.impl;
+
+/**
+ * Kernel computing sums of all rows and columns of a square in one linear
+ * pass over its genes: every row is added to the running sums of columns,
+ * so memory is read sequentially and the inner loop is simple enough for
+ * HotSpot to vectorize.
+ *
+ * The kernel using the Vector API is compiled by the vector profile and is
+ * used if JVM runs with the jdk.incubator.vector module, unless system
+ * property magic.square.vector is false.
+ */
+abstract class LineSums {
+    static final String VECTOR_KERNEL = "ga.square.magic.impl.VectorLineSums";
+
+    static final LineSums KERNEL = load();
+
+    /**
+     * @param lines sums of rows followed by sums of columns, at least
+     *              2 * size elements
+     */
+    abstract void sums(int[] genes, int offset, int size, int[] lines);
+
+    private static LineSums load() {
+        if (!Boolean.parseBoolean(System.getProperty("magic.square.vector", "true"))) {
+            return new ScalarLineSums();
+        }
+        try {
+            return (LineSums) Class.forName(VECTOR_KERNEL)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarLineSums();
+        }
+    }
+}
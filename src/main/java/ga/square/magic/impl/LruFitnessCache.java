@@ -0,0 +1,36 @@
+package ga.square.magic.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evicts the least recently used fitness.
+ */
+final class LruFitnessCache extends FitnessCache {
+    private final Map<Long, Integer> entries;
+
+    LruFitnessCache(final int capacity) {
+        this.entries = new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    long lookup(final long hash) {
+        final Integer fitness = entries.get(hash);
+        return (fitness == null) ? MISS : fitness;
+    }
+
+    @Override
+    void store(final long hash, final int fitness) {
+        entries.put(hash, fitness);
+    }
+}
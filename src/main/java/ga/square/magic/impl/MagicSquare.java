@@ -2,43 +2,117 @@ package ga.square.magic.impl;
 
 import ga.square.magic.Individual;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * Square encoded as a flat row-major array of genes, i.e. the value of the
+ * cell (x, y) is stored at index y * size + x.
+ */
 public class MagicSquare implements Individual<Integer> {
-    private final List<Integer> chromosome;
+    private final int[] genes;
     private final int size;
 
+    private List<Integer> chromosome;
+    private volatile MagicSquareSums sums;
+    private volatile long hash;
+    private volatile boolean hashed;
+
     public MagicSquare(final int size) {
         checkArgument(size > 0, "Size of square should be positive");
         this.size = size;
 
-        chromosome = new ArrayList<>(this.size * this.size);
-        for (int i = 1; i <= this.size * this.size; ++i) {
-            chromosome.add(i);
+        genes = new int[this.size * this.size];
+        for (int i = 0; i < genes.length; ++i) {
+            genes[i] = i + 1;
         }
     }
 
     public MagicSquare(final List<Integer> chromosome) {
         checkArgument(chromosome != null, "Illegal argument chromosome: null");
 
-        final int size =
-                Double.valueOf(Math.sqrt(chromosome.size())).intValue();
-        checkArgument(
-                size * size == chromosome.size(),
-                "Chromosome should encode a square");
+        this.size = sizeOf(chromosome.size());
+        this.genes = new int[chromosome.size()];
+        for (int i = 0; i < genes.length; ++i) {
+            genes[i] = chromosome.get(i);
+        }
+    }
 
+    /**
+     * Takes ownership of the given genes, so caller shouldn't modify them
+     * afterwards.
+     */
+    MagicSquare(final int[] genes, final int size) {
+        this(genes, size, null);
+    }
+
+    /**
+     * Takes ownership of the given genes and sums, which should describe
+     * the same square.
+     */
+    MagicSquare(final int[] genes, final int size, final MagicSquareSums sums) {
+        this.genes = genes;
         this.size = size;
-        this.chromosome =
-                Collections.unmodifiableList(new ArrayList<>(chromosome));
+        this.sums = sums;
     }
 
+    /**
+     * Boxed view of genes which is created on first access.
+     */
     @Override
     public List<Integer> chromosome() {
-        return Collections.unmodifiableList(chromosome);
+        if (chromosome == null) {
+            chromosome = new ChromosomeView(genes);
+        }
+        return chromosome;
+    }
+
+    /**
+     * Backing array of genes, shouldn't be modified.
+     */
+    int[] genes() {
+        return genes;
+    }
+
+    /**
+     * Line sums of the square which are computed on first access,
+     * shouldn't be modified.
+     */
+    MagicSquareSums sums() {
+        MagicSquareSums result = sums;
+        if (result == null) {
+            result = MagicSquareSums.of(genes, size);
+            sums = result;
+        }
+        return result;
+    }
+
+    /**
+     * Line sums of the square if they were already computed, null otherwise.
+     */
+    MagicSquareSums cachedSums() {
+        return sums;
+    }
+
+    /**
+     * Genome hash, which is taken from sums if they are computed, so hash of
+     * a mutant is updated incrementally, and is computed from genes
+     * otherwise.
+     */
+    long genomeHash() {
+        final MagicSquareSums cached = sums;
+        if (cached != null) {
+            return cached.hash();
+        }
+        if (!hashed) {
+            hash = GenomeHash.of(genes);
+            hashed = true;
+        }
+        return hash;
     }
 
     public int getSquareSize() {
@@ -51,7 +125,7 @@ public class MagicSquare implements Individual<Integer> {
         checkArgument(y >= 0, "Cell y index should be non-negative");
         checkArgument(y < size, "Cell y index should be smaller than size");
 
-        return chromosome.get(y * size + x);
+        return genes[y * size + x];
     }
 
     @Override
@@ -60,7 +134,7 @@ public class MagicSquare implements Individual<Integer> {
 
         for (int y = 0; y < size; y++) {
             for (int x = 0; x < size; x++) {
-                sb.append(getCellValue(x, y)).append(" ");
+                sb.append(genes[y * size + x]).append(" ");
             }
             sb.append("\n");
         }
@@ -78,15 +152,41 @@ public class MagicSquare implements Individual<Integer> {
         final MagicSquare that = (MagicSquare) o;
 
         if (size != that.size) return false;
-        if (!chromosome.equals(that.chromosome)) return false;
+        if (!Arrays.equals(genes, that.genes)) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        int result = chromosome.hashCode();
-        result = 31 * result + size;
-        return result;
+        final long hash = genomeHash();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int sizeOf(final int chromosomeLength) {
+        final int size = Double.valueOf(Math.sqrt(chromosomeLength)).intValue();
+        checkArgument(
+                size * size == chromosomeLength,
+                "Chromosome should encode a square");
+        return size;
+    }
+
+    private static class ChromosomeView
+            extends AbstractList<Integer> implements RandomAccess {
+        private final int[] genes;
+
+        private ChromosomeView(final int[] genes) {
+            this.genes = genes;
+        }
+
+        @Override
+        public Integer get(final int index) {
+            return genes[index];
+        }
+
+        @Override
+        public int size() {
+            return genes.length;
+        }
     }
 }
@@ -1,18 +1,24 @@
 package ga.square.magic.impl;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import ga.square.magic.GeneticAlgorithm;
-import org.apache.commons.lang3.RandomUtils;
+import ga.square.magic.AbstractGeneticAlgorithm;
+import ga.square.magic.Population;
+import ga.square.magic.RandomSource;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.*;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 public class MagicSquareGA
-        implements GeneticAlgorithm<MagicSquare> {
+        extends AbstractGeneticAlgorithm<MagicSquare> {
+    private static final ThreadLocal<CrossoverScratch> CROSSOVER_SCRATCH =
+            new ThreadLocal<CrossoverScratch>() {
+                @Override
+                protected CrossoverScratch initialValue() {
+                    return new CrossoverScratch();
+                }
+            };
+
     private final int T;
     private final double k;
 
@@ -27,16 +33,35 @@ public class MagicSquareGA
         this.k = k;
     }
 
+    int tournamentSize() {
+        return T;
+    }
+
+    double symmetryMultiplier() {
+        return k;
+    }
+
     @Override
-    public MagicSquare randomIndividual(final int sideSize) {
-        final ArrayList<Integer> chromosome =
-                new ArrayList<>(sideSize * sideSize);
-        for (int i = 1; i <= sideSize * sideSize; i++) {
-            chromosome.add(i);
-        }
-        Collections.shuffle(chromosome);
+    public MagicSquare randomIndividual(
+            final int sideSize, final RandomSource random) {
+        final int[] genes = new int[sideSize * sideSize];
+        randomGenes(genes, 0, genes.length, random);
 
-        return new MagicSquare(chromosome);
+        return new MagicSquare(genes, sideSize);
+    }
+
+    /**
+     * Writes random permutation of numbers from 1 to length to the given
+     * range of genes.
+     */
+    static void randomGenes(
+            final int[] genes, final int offset, final int length, final RandomSource random) {
+        for (int i = 0; i < length; i++) {
+            genes[offset + i] = i + 1;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            swap(genes, offset + i, offset + random.nextInt(0, i + 1));
+        }
     }
 
     /**
@@ -44,49 +69,51 @@ public class MagicSquareGA
      * diagonal.
      *
      * So, bigger fitness means worse individual.
+     *
+     * Sums of the individual are cached, so children produced by mutation of
+     * an already evaluated individual are evaluated incrementally. Solvers
+     * mutate only fresh crossover children, which have no sums, so their
+     * mutants are evaluated in full; cached sums pay off in local search of
+     * {@link #improve} and in genome hashes.
      */
     @Override
     public int fitnessOf(final MagicSquare individual) {
         checkArgument(individual != null, "Illegal argument individual: null");
 
-        final int size = individual.getSquareSize();
-        final int magicSum = magicSum(size);
-
-        int fitness = 0;
-        for (int row = 0; row < size; row++) {
-            fitness += squaredDiff(magicSum, rowSum(individual, row));
-        }
-        for (int column = 0; column < size; column++) {
-            fitness += squaredDiff(magicSum, columnSum(individual, column));
-        }
-        fitness += squaredDiff(magicSum, leftDiagonalSum(individual));
-        fitness += squaredDiff(magicSum, rightDiagonalSum(individual));
-
-        fitness += asymmetricPenaltyOf(individual);
-
-        return fitness;
+        return individual.sums().fitness(k);
     }
 
-    private int asymmetricPenaltyOf(final MagicSquare individual) {
-        final int size = individual.getSquareSize();
-        final int border = size / 2;
-
-        int diff = 0;
-        for (int y = 0; y < border; ++y) {
-            for (int x = 0; x < border; ++x) {
-                final int leftDiff =
-                        squaredDiff(
-                                individual.getCellValue(x, y),
-                                individual.getCellValue(x, size - 1 - y));
-                final int rightDiff =
-                        squaredDiff(
-                                individual.getCellValue(size - 1 - x, y),
-                                individual.getCellValue(size - 1 - x, size - 1 - y));
-                diff += squaredDiff(leftDiff, rightDiff);
+    /**
+     * Individuals without cached sums are evaluated by the kernel of packed
+     * populations, which shares one buffer of line sums across the batch
+     * and doesn't allocate sums nor compute genome hash. Their sums are
+     * computed later only if they are needed.
+     */
+    @Override
+    public void fitnessOf(
+            final MagicSquare[] individuals,
+            final int from,
+            final int to,
+            final int[] fitness) {
+        checkBatch(individuals, from, to, fitness);
+
+        int[] lines = new int[0];
+        for (int i = from; i < to; i++) {
+            final MagicSquare individual = individuals[i];
+            if (individual == null) {
+                continue;
+            }
+            final MagicSquareSums sums = individual.cachedSums();
+            if (sums != null) {
+                fitness[i] = sums.fitness(k);
+                continue;
+            }
+            final int size = individual.getSquareSize();
+            if (lines.length < 2 * size) {
+                lines = new int[2 * size];
             }
+            fitness[i] = MagicSquareSums.fitnessOf(individual.genes(), 0, size, lines, k);
         }
-
-        return new Double(diff * k).intValue();
     }
 
     /**
@@ -94,26 +121,30 @@ public class MagicSquareGA
      */
     @Override
     public List<ImmutablePair<MagicSquare, MagicSquare>> selectParents(
-            final Multimap<Integer, MagicSquare> population) {
+            final Population<MagicSquare> population,
+            final RandomSource random) {
         checkArgument(population != null, "Illegal argument population: null");
         checkArgument(
                 population.size() > 1,
                 "Population should contain more than one individual");
 
         final List<ImmutablePair<MagicSquare, MagicSquare>> result =
-                new ArrayList<>();
+                new ArrayList<>(population.size() / 2);
 
-        final List<MagicSquare> possibleParents = new ArrayList<>(population.values());
+        final int[] possibleParents = new int[population.size()];
+        for (int i = 0; i < possibleParents.length; i++) {
+            possibleParents[i] = i;
+        }
 
-        while (!possibleParents.isEmpty()) {
-            final Pair<Integer, Integer> indices =
-                    randomDifferentIndices(possibleParents.size());
-            final int father = indices.getLeft();
-            final int mother = indices.getRight();
+        for (int i = possibleParents.length; i > 1; i -= 2) {
+            final int father = random.nextInt(0, i);
+            swap(possibleParents, father, i - 1);
+            final int mother = random.nextInt(0, i - 1);
+            swap(possibleParents, mother, i - 2);
 
             result.add(new ImmutablePair<>(
-                    possibleParents.remove(father),
-                    possibleParents.remove((father < mother) ? mother - 1 : mother)));
+                    population.individual(possibleParents[i - 1]),
+                    population.individual(possibleParents[i - 2])));
         }
 
         return result;
@@ -121,253 +152,300 @@ public class MagicSquareGA
 
     /**
      * Children is added to population and the tournament selection is used.
-     * Size of population is not changed.
+     * Size of population is not changed, losers are replaced by surviving
+     * children in place.
      */
     @Override
-    public Multimap<Integer, MagicSquare> nextGenerationFrom(
-            final Multimap<Integer, MagicSquare> population,
-            final Multimap<Integer, MagicSquare> children) {
+    public Population<MagicSquare> nextGenerationFrom(
+            final Population<MagicSquare> population,
+            final Population<MagicSquare> children,
+            final RandomSource random) {
         checkArgument(population != null, "Illegal argument population: null");
         checkArgument(children != null, "Illegal argument population: null");
         checkArgument(
                 population.size() > 1,
                 "Population should contain more than one individual");
 
-        final Multimap<Integer, MagicSquare> tournament =
-                ArrayListMultimap.create(population);
-        for (final Map.Entry<Integer, MagicSquare> e : children.entries()) {
-            tournament.put(e.getKey(), e.getValue());
-        }
+        final int populationSize = population.size();
+        final int total = populationSize + children.size();
 
-        final List<Map.Entry<Integer, MagicSquare>> entries =
-                new ArrayList<>(tournament.entries());
-        final Multimap<Integer, Map.Entry<Integer, MagicSquare>> tournamentRes =
-                ArrayListMultimap.create();
-        for (Map.Entry<Integer, MagicSquare> e : entries) {
-            int games = 0;
-            int wins = 0;
-            while (games < T) {
-                final int rand = RandomUtils.nextInt(0, entries.size());
-                final Map.Entry<Integer, MagicSquare> entry = entries.get(rand);
-                if (entry.getValue() != e.getValue()) {
-                    games += 1;
-                    if (entry.getKey() > e.getKey()) {
-                        wins += 1;
-                    }
-                }
-            }
-
-            tournamentRes.put(wins, e);
+        final int[] fitness = new int[total];
+        for (int i = 0; i < populationSize; i++) {
+            fitness[i] = population.fitness(i);
+        }
+        for (int i = 0; i < children.size(); i++) {
+            fitness[populationSize + i] = children.fitness(i);
         }
 
-        final List<Integer> winValues = new ArrayList<>(tournamentRes.keySet());
-        Collections.sort(winValues);
-
-        while (tournament.size() != population.size() && !winValues.isEmpty()) {
-            final Stack<Map.Entry<Integer, MagicSquare>> candidates = new Stack<>();
-            for (final Map.Entry<Integer, MagicSquare> ms :
-                    tournamentRes.get(winValues.get(0))) {
-                candidates.push(ms);
-            }
+        final boolean[] removed = new boolean[total];
+        TournamentSelection.selectLosers(
+                fitness, total, T, children.size(), removed, random);
 
-            while (!candidates.isEmpty() && tournament.size() != population.size()) {
-                final Map.Entry<Integer, MagicSquare> e = candidates.pop();
-                tournament.remove(e.getKey(), e.getValue());
+        int child = populationSize;
+        for (int i = 0; i < populationSize; i++) {
+            if (removed[i]) {
+                while (removed[child]) {
+                    child++;
+                }
+                final int index = child - populationSize;
+                population.set(
+                        i, children.individual(index), children.fitness(index));
+                child++;
             }
-
-            winValues.remove(0);
         }
 
-        return tournament;
+        return population;
     }
 
     /**
      * Swap mutation: swaps either two random elements in the chromosome, two
      * rows of the encoded square, or two columns of the encoded square.
+     *
+     * Sums of the individual are updated by the swaps only if they were
+     * already computed.
      */
     @Override
-    public MagicSquare mutate(final MagicSquare individual) {
+    public MagicSquare mutate(
+            final MagicSquare individual, final RandomSource random) {
         checkArgument(individual != null, "Illegal argument individual: null");
 
-        final double rand = RandomUtils.nextDouble(0, 1.0);
+        final int[] genes = individual.genes().clone();
+        final MagicSquareSums sums = copyOfCachedSums(individual);
+        mutate(genes, 0, individual.getSquareSize(), sums, random);
+
+        return new MagicSquare(genes, individual.getSquareSize(), sums);
+    }
+
+    /**
+     * Mutates genes of a square stored at the given offset in place.
+     *
+     * @param sums sums updated by swaps, null if they aren't maintained;
+     *             offset should be 0 if they are
+     */
+    static void mutate(
+            final int[] genes,
+            final int offset,
+            final int size,
+            final MagicSquareSums sums,
+            final RandomSource random) {
+        final double rand = random.nextDouble();
         if (rand < 0.3) {
-            return swapColumns(individual);
+            swapColumns(genes, offset, size, sums, random);
         } else if (rand < 0.6) {
-            return swapRows(individual);
+            swapRows(genes, offset, size, sums, random);
         } else {
-            return swapGenes(individual);
+            swapGenes(genes, offset, size, sums, random);
         }
     }
 
     /**
-     * PBX-crossover
+     * PBX-crossover: genes on random positions are inherited from father, the
+     * rest of positions are filled in order with remaining genes in the order
+     * they appear in mother.
+     *
+     * Doesn't allocate anything except the child itself.
      */
     @Override
     public MagicSquare crossover(
-            final MagicSquare father, final MagicSquare mother) {
+            final MagicSquare father,
+            final MagicSquare mother,
+            final RandomSource random) {
         checkArgument(father != null, "Illegal argument father: null");
         checkArgument(mother != null, "Illegal argument mother: null");
         checkArgument(
                 father.getSquareSize() == mother.getSquareSize(),
                 "Parents have unaligned sizes");
 
-        final List<Integer> fatherChromosome = father.chromosome();
-        final List<Integer> motherChromosome = mother.chromosome();
-        final List<Integer> childChromosome =
-                new ArrayList<>(fatherChromosome.size());
-
-        final Set<Integer> unusedGenes = new HashSet<>(fatherChromosome);
-
-        final Set<Integer> positions = new HashSet<>();
-        final int positionsQuantity = RandomUtils.nextInt(1, fatherChromosome.size());
-        final List<Integer> unusedPositions = new ArrayList<>();
-        for (int i = 0; i < fatherChromosome.size(); i++) {
-            unusedPositions.add(i);
-        }
-        while (positions.size() != positionsQuantity && !unusedPositions.isEmpty()) {
-            positions.add(unusedPositions.remove(
-                    RandomUtils.nextInt(0, unusedPositions.size())));
-        }
+        final int length = father.genes().length;
+        final int[] childGenes = new int[length];
+        crossover(father.genes(), 0, mother.genes(), 0, childGenes, 0, length, random);
 
-        final Map<Integer, Integer> child = new HashMap<>();
+        return new MagicSquare(childGenes, father.getSquareSize());
+    }
 
-        for (final Integer position : positions) {
-            final int gene = fatherChromosome.get(position);
-            unusedGenes.remove(gene);
-            child.put(position, gene);
+    /**
+     * Crossover of parents stored at the given offsets, the child is written
+     * at its offset.
+     */
+    static void crossover(
+            final int[] fatherGenes,
+            final int fatherOffset,
+            final int[] motherGenes,
+            final int motherOffset,
+            final int[] childGenes,
+            final int childOffset,
+            final int length,
+            final RandomSource random) {
+        final CrossoverScratch scratch = CROSSOVER_SCRATCH.get().of(length);
+        final boolean[] usedGenes = scratch.usedGenes;
+        final boolean[] usedPositions = scratch.usedPositions;
+        final int[] positions = scratch.positions;
+        final int[] swaps = scratch.swaps;
+
+        final int positionsQuantity = random.nextInt(1, length);
+        for (int i = 0; i < positionsQuantity; i++) {
+            final int j = random.nextInt(i, length);
+            swap(positions, i, j);
+            swaps[i] = j;
+
+            final int position = positions[i];
+            final int gene = fatherGenes[fatherOffset + position];
+            usedPositions[position] = true;
+            usedGenes[gene] = true;
+            childGenes[childOffset + position] = gene;
         }
 
-        for (final Integer gene : motherChromosome) {
-            if (unusedGenes.isEmpty() || unusedPositions.isEmpty()) {
-                break;
-            } else if (unusedGenes.contains(gene)) {
-                child.put(unusedPositions.remove(0), gene);
-                unusedGenes.remove(gene);
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            final int gene = motherGenes[motherOffset + i];
+            if (!usedGenes[gene]) {
+                while (usedPositions[position]) {
+                    position++;
+                }
+                childGenes[childOffset + position++] = gene;
             }
         }
 
-        for (int i = 0; i < fatherChromosome.size(); i++) {
-            childChromosome.add(child.get(i));
+        for (int i = positionsQuantity - 1; i >= 0; i--) {
+            usedPositions[positions[i]] = false;
+            usedGenes[fatherGenes[fatherOffset + positions[i]]] = false;
+            swap(positions, i, swaps[i]);
         }
-
-        return new MagicSquare(childChromosome);
     }
 
-    private int magicSum(final int n) {
-        return n * (n * n + 1) / 2;
-    }
+    /**
+     * Hill climbing by swaps of two cells: a swap is kept if it doesn't make
+     * fitness worse, so the search could walk along plateaus. Every swap is
+     * scored in O(1) by incremental update of sums and undone by the same
+     * swap.
+     */
+    @Override
+    public MagicSquare improve(
+            final MagicSquare individual, final int budget, final RandomSource random) {
+        checkArgument(individual != null, "Illegal argument individual: null");
+        checkArgument(budget >= 0, "Budget should be non-negative");
 
-    private int rowSum(final MagicSquare individual, final int row) {
-        int sum = 0;
-        for (int x = 0; x < individual.getSquareSize(); x++) {
-            sum += individual.getCellValue(x, row);
+        final int[] genes = individual.genes().clone();
+        final MagicSquareSums sums = individual.sums().copy();
+        final int initial = sums.fitness(k);
+        if (initial == 0 || genes.length < 2) {
+            return individual;
         }
-        return sum;
-    }
 
-    private int columnSum(final MagicSquare individual, final int column) {
-        int sum = 0;
-        for (int y = 0; y < individual.getSquareSize(); y++) {
-            sum += individual.getCellValue(column, y);
+        int fitness = initial;
+        for (int move = 0; move < budget && fitness != 0; move++) {
+            final int i = random.nextInt(0, genes.length);
+            final int j = randomIndexOtherThan(i, genes.length, random);
+            sums.swap(genes, i, j);
+            final int candidate = sums.fitness(k);
+            if (candidate <= fitness) {
+                fitness = candidate;
+            } else {
+                sums.swap(genes, i, j);
+            }
         }
-        return sum;
-    }
 
-    private int leftDiagonalSum(final MagicSquare individual) {
-        int sum = 0;
-        for (int i = 0; i < individual.getSquareSize(); i++) {
-            sum += individual.getCellValue(i, i);
-        }
-        return sum;
+        return (fitness < initial)
+                ? new MagicSquare(genes, individual.getSquareSize(), sums)
+                : individual;
     }
 
-    private int rightDiagonalSum(final MagicSquare individual) {
-        final int size = individual.getSquareSize();
-        int sum = 0;
-        for (int i = 0; i < size; i++) {
-            sum += individual.getCellValue(size - 1 - i, i);
+    /**
+     * Buffers reused by crossovers on the same thread. Crossover undoes its
+     * partial shuffle of positions and clears flags after use, so the child
+     * depends only on parents and random numbers, not on the thread.
+     */
+    private static class CrossoverScratch {
+        private boolean[] usedGenes = new boolean[0];
+        private boolean[] usedPositions = new boolean[0];
+        private int[] positions = new int[0];
+        private int[] swaps = new int[0];
+
+        private CrossoverScratch of(final int length) {
+            if (positions.length != length) {
+                usedGenes = new boolean[length + 1];
+                usedPositions = new boolean[length];
+                positions = new int[length];
+                swaps = new int[length];
+                for (int i = 0; i < length; i++) {
+                    positions[i] = i;
+                }
+            }
+            return this;
         }
-        return sum;
-    }
-
-    private int squaredDiff(final int x, final int y) {
-        return (x - y) * (x - y);
     }
 
-    private Pair<Integer, Integer> randomDifferentIndices(final int max) {
-        final int i = RandomUtils.nextInt(0, max);
-        int j = RandomUtils.nextInt(0, max);
+    private static int randomIndexOtherThan(
+            final int i, final int max, final RandomSource random) {
+        int j = random.nextInt(0, max);
         while (j == i) {
-            j = RandomUtils.nextInt(0, max);
+            j = random.nextInt(0, max);
         }
-        return new ImmutablePair<>(i, j);
+        return j;
     }
 
-    private MagicSquare swapGenes(final MagicSquare individual) {
-        final List<Integer> chromosome =
-                new ArrayList<>(individual.chromosome());
-
-        final Pair<Integer, Integer> indices =
-                randomDifferentIndices(chromosome.size());
-
-        final int ithGene = chromosome.get(indices.getLeft());
-        final int jthGene = chromosome.get(indices.getRight());
-
-        chromosome.set(indices.getLeft(), jthGene);
-        chromosome.set(indices.getRight(), ithGene);
-
-        return new MagicSquare(chromosome);
+    private static void swap(final int[] genes, final int i, final int j) {
+        final int gene = genes[i];
+        genes[i] = genes[j];
+        genes[j] = gene;
     }
 
-    private MagicSquare swapRows(final MagicSquare individual) {
-        final Pair<Integer, Integer> indices =
-                randomDifferentIndices(individual.getSquareSize());
-
-        final List<Integer> chromosome =
-                new ArrayList<>(individual.chromosome());
+    private static void swapGenes(
+            final int[] genes,
+            final int offset,
+            final int size,
+            final MagicSquareSums sums,
+            final RandomSource random) {
+        final int length = size * size;
+        final int i = random.nextInt(0, length);
+        swap(genes, offset, i, randomIndexOtherThan(i, length, random), sums);
+    }
 
-        final List<Integer> ithRow = new ArrayList<>();
-        final List<Integer> jthRow = new ArrayList<>();
-        for (int i = 0; i < individual.getSquareSize(); i++) {
-            ithRow.add(individual.getCellValue(i, indices.getLeft()));
-            jthRow.add(individual.getCellValue(i, indices.getRight()));
+    private static void swapRows(
+            final int[] genes,
+            final int offset,
+            final int size,
+            final MagicSquareSums sums,
+            final RandomSource random) {
+        final int i = random.nextInt(0, size);
+        final int j = randomIndexOtherThan(i, size, random);
+
+        final int ithRow = i * size;
+        final int jthRow = j * size;
+        for (int x = 0; x < size; x++) {
+            swap(genes, offset, ithRow + x, jthRow + x, sums);
         }
+    }
 
-        for (int i = 0; i < individual.getSquareSize(); i++) {
-            chromosome.set(
-                    indices.getLeft() * individual.getSquareSize() + i,
-                    jthRow.get(i));
-            chromosome.set(
-                    indices.getRight() * individual.getSquareSize() + i,
-                    ithRow.get(i));
+    private static void swapColumns(
+            final int[] genes,
+            final int offset,
+            final int size,
+            final MagicSquareSums sums,
+            final RandomSource random) {
+        final int i = random.nextInt(0, size);
+        final int j = randomIndexOtherThan(i, size, random);
+
+        for (int y = 0; y < size * size; y += size) {
+            swap(genes, offset, y + i, y + j, sums);
         }
-
-        return new MagicSquare(chromosome);
     }
 
-    private MagicSquare swapColumns(final MagicSquare individual) {
-        final Pair<Integer, Integer> indices =
-                randomDifferentIndices(individual.getSquareSize());
-
-        final List<Integer> chromosome =
-                new ArrayList<>(individual.chromosome());
-
-        final List<Integer> ithColumn = new ArrayList<>();
-        final List<Integer> jthColumn = new ArrayList<>();
-        for (int i = 0; i < individual.getSquareSize(); i++) {
-            ithColumn.add(individual.getCellValue(indices.getLeft(), i));
-            jthColumn.add(individual.getCellValue(indices.getRight(), i));
-        }
+    private static MagicSquareSums copyOfCachedSums(final MagicSquare individual) {
+        final MagicSquareSums sums = individual.cachedSums();
+        return (sums == null) ? null : sums.copy();
+    }
 
-        for (int i = 0; i < individual.getSquareSize(); i++) {
-            chromosome.set(
-                    i * individual.getSquareSize() + indices.getLeft(),
-                    jthColumn.get(i));
-            chromosome.set(
-                    i * individual.getSquareSize() + indices.getRight(),
-                    ithColumn.get(i));
+    private static void swap(
+            final int[] genes,
+            final int offset,
+            final int i,
+            final int j,
+            final MagicSquareSums sums) {
+        if (sums == null) {
+            swap(genes, offset + i, offset + j);
+        } else {
+            sums.swap(genes, i, j);
         }
-
-        return new MagicSquare(chromosome);
     }
 }
@@ -1,30 +1,74 @@
 package ga.square.magic.impl;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
 import ga.square.magic.GeneticAlgorithm;
+import ga.square.magic.Population;
+import ga.square.magic.PopulationSummary;
+import ga.square.magic.RandomSource;
 import ga.square.magic.Solver;
 import ga.square.magic.SolverConfiguration;
-import ga.square.magic.gui.SquarePanel;
-import org.apache.commons.lang3.RandomUtils;
+import ga.square.magic.SplitMixRandom;
+import ga.square.magic.metrics.SolverMetrics;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
-import javax.swing.*;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * Solver which doesn't depend on any UI, progress is reported to listeners
+ * on the thread running the solver.
+ *
+ * If configuration specifies checkpoint file, state of evolution is written
+ * to it periodically and after the last generation; evolution could be
+ * continued from it with {@link #resumeFrom(Checkpoint)}.
+ *
+ * Besides finding a solution and reaching the last generation, evolution
+ * is stopped when time budget of the configuration runs out or when it
+ * stalls: the best fitness doesn't improve for the given number of
+ * generations or share of distinct individuals drops below the threshold.
+ * Stalled evolution is restarted while restarts remain: the elite is kept
+ * and the rest of the population is replaced by random individuals.
+ */
 public class MagicSquareSolver
-        extends SwingWorker<Solver.SolverResult<MagicSquare>, Solver.SolverResult<MagicSquare>>
         implements Solver<MagicSquare, GeneticAlgorithm<MagicSquare>> {
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Reason why evolution was stopped.
+     */
+    public enum Termination {
+        SOLVED,
+        MAX_GENERATIONS,
+        TIME_BUDGET,
+        STAGNATION,
+        LOW_DIVERSITY,
+        CANCELLED
+    }
+
     private final GeneticAlgorithm<MagicSquare> algorithm;
     private final int squareSize;
     private final SolverConfiguration configuration;
-    private long timeEllapsed;
+    private final List<Listener<MagicSquare>> listeners;
+    private final FitnessCache fitnessCache;
+
+    private volatile boolean cancelled;
+    private Checkpoint resumeFrom;
+    private SolverMetrics metrics;
+
+    /** Genome hashes of the current population, null if duplicates are allowed. */
+    private GenomeIndex index;
+    private volatile long offspring;
+    private volatile long duplicates;
 
-    private SolverResult<MagicSquare> currentBestIndividual;
+    /** Genome hashes used to measure diversity of the population. */
+    private GenomeIndex distinct;
+    private volatile Termination termination;
+    private volatile int restarts;
 
     public MagicSquareSolver(
             final GeneticAlgorithm<MagicSquare> algorithm,
@@ -36,8 +80,91 @@ public class MagicSquareSolver
         this.algorithm = algorithm;
         this.squareSize = squareSize;
         this.configuration = configuration;
-        this.timeEllapsed = 0;
-        this.currentBestIndividual = null;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.fitnessCache = (configuration.fitnessCacheSize() > 0)
+                ? FitnessCache.of(
+                        configuration.fitnessCachePolicy(),
+                        configuration.fitnessCacheSize())
+                : null;
+        this.cancelled = false;
+    }
+
+    public void addListener(final Listener<MagicSquare> listener) {
+        checkArgument(listener != null, "Illegal argument listener: null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener<MagicSquare> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops evolution after the current generation, solve() returns the
+     * best individual found so far.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return cache of fitness of children, null if it is disabled
+     */
+    public FitnessCache fitnessCache() {
+        return fitnessCache;
+    }
+
+    /**
+     * @return share of children rejected as duplicates of individuals of
+     *         the population or of other children, including refined
+     *         children reverted for the same reason, 0 if duplicates are
+     *         allowed
+     */
+    public double duplicateRate() {
+        final long produced = offspring;
+        return (produced == 0) ? 0 : (double) duplicates / produced;
+    }
+
+    /**
+     * @return reason why the last evolution was stopped, null if it wasn't
+     *         stopped yet
+     */
+    public Termination termination() {
+        return termination;
+    }
+
+    /**
+     * @return restarts of stalled evolution so far
+     */
+    public int restarts() {
+        return restarts;
+    }
+
+    /**
+     * Makes solve() record metrics of generations, should be called before
+     * solve().
+     *
+     * @param metrics metrics which are reset by solve(), null to disable
+     *                them
+     */
+    public void recordMetrics(final SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Makes solve() continue evolution from the checkpoint instead of a
+     * random population. Evolution with the same configuration continues
+     * exactly as it would without interruption.
+     */
+    public void resumeFrom(final Checkpoint checkpoint) {
+        checkArgument(checkpoint != null, "Illegal argument checkpoint: null");
+        checkArgument(
+                checkpoint.getSquareSize() == squareSize,
+                "Checkpoint has different size of square");
+        resumeFrom = checkpoint;
     }
 
     @Override
@@ -45,110 +172,713 @@ public class MagicSquareSolver
         checkArgument(algorithm != null, "Illegal argument algorithm: null");
         checkArgument(configuration != null, "Illegal argument configuration: null");
 
-        Multimap<Integer, MagicSquare> population =
-                generateInitialPopulation(
-                        algorithm,
-                        squareSize,
-                        configuration.populationSize());
-        long t = 0;
+        final SplitMixRandom random;
+        Population<MagicSquare> population;
+        long t;
+        int bestFitness;
+        long stagnation;
+        if (resumeFrom == null) {
+            random = new SplitMixRandom(configuration.seed());
+            population = generateInitialPopulation(random);
+            t = 0;
+            bestFitness = population.bestFitness();
+            stagnation = 0;
+            restarts = 0;
+        } else {
+            random = new SplitMixRandom(resumeFrom.getRandomState());
+            population = resumeFrom.getPopulation().copy();
+            t = resumeFrom.getGeneration();
+            bestFitness = resumeFrom.getBestFitness();
+            stagnation = resumeFrom.getStagnation();
+            restarts = resumeFrom.getRestarts();
+        }
+        termination = null;
+        final Population<MagicSquare> children =
+                new Population<>(population.size() / 2);
+        final ForkJoinPool pool = (configuration.parallelism() > 1)
+                ? new ForkJoinPool(configuration.parallelism())
+                : null;
+        final CheckpointWriter checkpoints = (configuration.checkpointPath() != null)
+                ? new CheckpointWriter(configuration.checkpointPath())
+                : null;
         final long startTime = System.currentTimeMillis();
+        if (metrics != null) {
+            metrics.start();
+        }
 
-        while (!isEvolutionFinished(configuration.maxGenerations(), t, population)) {
-            if (t % configuration.getN() == 0) {
-                final SolverResult<MagicSquare> newBestIndividual =
-                        findBestIndividual(population, t);
-                firePropertyChange(
-                        "currentBestIndividual",
-                        currentBestIndividual,
-                        newBestIndividual);
-                currentBestIndividual = newBestIndividual;
-                setProgress(
-                        new Double(100 * t / configuration.maxGenerations()).intValue());
-            }
-
-            t += 1;
-
-            final List<ImmutablePair<MagicSquare, MagicSquare>> parents =
-                    algorithm.selectParents(population);
-            final Multimap<Integer, MagicSquare> children =
-                    ArrayListMultimap.create();
-
-            for (final ImmutablePair<MagicSquare, MagicSquare> p : parents) {
-                if (RandomUtils.nextDouble(0, 1) < configuration.crossoverProbability()) {
-                    MagicSquare child = algorithm.crossover(p.getLeft(), p.getRight());
-                    if (RandomUtils.nextDouble(0, 1) < configuration.mutationProbability()) {
-                        child = algorithm.mutate(child);
+        try {
+            while (true) {
+                Termination stall = stallOf(population, stagnation);
+                if (stall != null && restarts < configuration.restarts()) {
+                    population = restart(population, random);
+                    bestFitness = population.bestFitness();
+                    stagnation = 0;
+                    stall = null;
+                    restarts++;
+                }
+                termination = terminationOf(t, population, stall, startTime);
+                if (termination != null) {
+                    break;
+                }
+
+                if (t % configuration.getN() == 0 && !listeners.isEmpty()) {
+                    final SolverResult<MagicSquare> currentBestIndividual =
+                            SolverResult.onDemand(
+                                    population.best(),
+                                    population.bestFitness(),
+                                    t,
+                                    population,
+                                    PopulationSummary.of(population, diversityOf(population)));
+                    final int progress = progressOf(t, startTime);
+                    for (final Listener<MagicSquare> listener : listeners) {
+                        listener.progress(currentBestIndividual, progress);
                     }
-                    children.put(algorithm.fitnessOf(child), child);
+                    currentBestIndividual.release();
                 }
+
+                t += 1;
+
+                final long allocated = (metrics != null) ? SolverMetrics.allocatedBytes() : -1;
+                population = evolve(population, children, pool, random);
+                if (metrics != null) {
+                    recordGeneration(population, allocated);
+                }
+
+                if (population.bestFitness() < bestFitness) {
+                    bestFitness = population.bestFitness();
+                    stagnation = 0;
+                } else {
+                    stagnation++;
+                }
+
+                if (checkpoints != null && t % configuration.checkpointInterval() == 0) {
+                    checkpoints.write(
+                            checkpointOf(population, t, random, bestFitness, stagnation));
+                }
+            }
+            if (checkpoints != null) {
+                checkpoints.write(
+                        checkpointOf(population, t, random, bestFitness, stagnation));
             }
+        } catch (RuntimeException | Error e) {
+            final Throwable failure = (checkpoints != null) ? checkpoints.close() : null;
+            if (failure != null) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        // failure of writing checkpoints is reported with the result
+        final Throwable failure = (checkpoints != null) ? checkpoints.close() : null;
 
-            population = algorithm.nextGenerationFrom(population, children);
+        final long elapsed = System.currentTimeMillis() - startTime;
+        final SolverResult<MagicSquare> result = findBestIndividual(population, t, failure);
+        for (final Listener<MagicSquare> listener : listeners) {
+            listener.finished(result, elapsed);
         }
 
-        timeEllapsed = System.currentTimeMillis() - startTime;
+        return result;
+    }
+
+    /**
+     * Evolves population by one generation.
+     *
+     * @param children buffer for children, its previous content is dropped
+     * @param pool pool producing offspring, null to produce them on the
+     *             calling thread
+     * @param random source of random numbers used by the calling thread
+     */
+    Population<MagicSquare> evolve(
+            final Population<MagicSquare> population,
+            final Population<MagicSquare> children,
+            final ForkJoinPool pool,
+            final RandomSource random) {
+        long time = now();
+        final List<ImmutablePair<MagicSquare, MagicSquare>> parents =
+                algorithm.selectParents(population, random);
+        recordPhase(SolverMetrics.Phase.SELECTION, time);
+        if (configuration.rejectDuplicates()) {
+            indexOf(population);
+        }
+        offspringOf(parents, pool, children, random.nextLong());
+        time = now();
+        if (configuration.refinementFraction() > 0
+                && configuration.refinementBudget() > 0
+                && !children.isEmpty()) {
+            refine(children, pool, random.nextLong());
+            time = recordPhase(SolverMetrics.Phase.REFINEMENT, time);
+        }
 
-        return findBestIndividual(population, t);
+        final Population<MagicSquare> next =
+                algorithm.nextGenerationFrom(population, children, random);
+        recordPhase(SolverMetrics.Phase.REPLACEMENT, time);
+        return next;
     }
 
-    @Override
-    protected void done() {
-        try {
-            setProgress(100);
-            final SolverResult<MagicSquare> r = get();
-            firePropertyChange(
-                    "currentBestIndividual",
-                    currentBestIndividual,
-                    r);
-            firePropertyChange(
-                    "totalTime",
-                    0,
-                    Double.toString(timeEllapsed / 1000.0));
-        } catch (Exception ignore) {
+    /**
+     * @return current time if metrics are recorded, 0 otherwise
+     */
+    private long now() {
+        return (metrics != null) ? System.nanoTime() : 0;
+    }
 
+    /**
+     * @param start time at which the phase started
+     * @return time at which the phase ended
+     */
+    private long recordPhase(final SolverMetrics.Phase phase, final long start) {
+        if (metrics == null) {
+            return 0;
         }
-        super.done();
+        final long end = System.nanoTime();
+        metrics.recordPhase(phase, end - start);
+        return end;
     }
 
-    private SolverResult<MagicSquare> findBestIndividual(
-            final Multimap<Integer, MagicSquare> population,
-            final long t) {
-        final List<Integer> fitness = new ArrayList<>(population.keySet());
-        Collections.sort(fitness);
+    private void recordGeneration(
+            final Population<MagicSquare> population, final long allocated) {
+        if (allocated >= 0) {
+            metrics.recordAllocation(SolverMetrics.allocatedBytes() - allocated);
+        }
+        long sum = 0;
+        for (int i = 0; i < population.size(); i++) {
+            sum += population.fitness(i);
+        }
+        metrics.recordGeneration(
+                population.bestFitness(),
+                (double) sum / population.size(),
+                diversityOf(population));
+    }
 
-        return new SolverResult<>(
-                ArrayListMultimap.create(population).get(fitness.get(0)).get(0),
-                fitness.get(0),
+    /**
+     * Memetic stage: the best children are improved by local search of the
+     * algorithm. Child of every rank uses its own generator derived from the
+     * seed, so ranks are split between the threads of the pool like pairs
+     * of parents and the result doesn't depend on the split.
+     *
+     * Improved children replace the original ones in order of ranks. If
+     * duplicates are rejected, an improved child equal to an individual of
+     * the population or to another child is reverted to the original child
+     * and counted as a duplicate.
+     */
+    private void refine(
+            final Population<MagicSquare> children,
+            final ForkJoinPool pool,
+            final long seed) {
+        final int count = (int) Math.ceil(
+                configuration.refinementFraction() * children.size());
+
+        final long[] ranked = new long[children.size()];
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i] = ((long) children.fitness(i) << 32) | i;
+        }
+        Arrays.sort(ranked);
+
+        final MagicSquare[] improved = new MagicSquare[count];
+        final int[] fitness = new int[count];
+        if (pool == null) {
+            improve(children, ranked, improved, fitness, seed, 0, count);
+        } else {
+            final int threshold = Math.max(
+                    1, count / (TASKS_PER_THREAD * pool.getParallelism()));
+            pool.invoke(new RefinementTask(
+                    children, ranked, improved, fitness, seed, 0, count, threshold));
+        }
+
+        for (int rank = 0; rank < count; rank++) {
+            if (improved[rank] == null) {
+                continue;
+            }
+            if (index != null && !index.add(improved[rank].genomeHash())) {
+                duplicates++;
+                continue;
+            }
+            children.set((int) ranked[rank], improved[rank], fitness[rank]);
+        }
+    }
+
+    /**
+     * Improves children of ranks from the range, children which weren't
+     * improved are left null.
+     */
+    private void improve(
+            final Population<MagicSquare> children,
+            final long[] ranked,
+            final MagicSquare[] improved,
+            final int[] fitness,
+            final long seed,
+            final int from,
+            final int to) {
+        long evaluations = 0;
+        for (int rank = from; rank < to; rank++) {
+            final MagicSquare child = children.individual((int) ranked[rank]);
+            final MagicSquare result = algorithm.improve(
+                    child,
+                    configuration.refinementBudget(),
+                    SplitMixRandom.forIndex(seed, rank));
+            if (result != child) {
+                improved[rank] = result;
+                fitness[rank] = algorithm.fitnessOf(result);
+                evaluations++;
+            }
+        }
+        if (metrics != null) {
+            metrics.recordEvaluations(evaluations);
+        }
+    }
+
+    /**
+     * Each pair of parents produces at most one child. Pairs are split
+     * between the threads of the pool and every child is written to its own
+     * slot, so the children are merged without any locking.
+     *
+     * Every pair draws random numbers from its own generator derived from
+     * the seed and index of the pair, so offspring doesn't depend on the way
+     * pairs are split between threads.
+     *
+     * If duplicates are rejected, children equal to individuals of the
+     * population are dropped before evaluation and children equal to
+     * earlier children are dropped while merging.
+     *
+     * If fitness is cached, threads of the pool only compute genome hashes
+     * of children; the cache is then read and written by the calling
+     * thread around one batch evaluation of the missing children, so
+     * threads never contend for the cache.
+     */
+    private void offspringOf(
+            final List<ImmutablePair<MagicSquare, MagicSquare>> parents,
+            final ForkJoinPool pool,
+            final Population<MagicSquare> result,
+            final long seed) {
+        final MagicSquare[] children = new MagicSquare[parents.size()];
+        final int[] fitness = new int[parents.size()];
+        final boolean[] rejected = new boolean[parents.size()];
+
+        if (pool == null) {
+            breed(parents, children, fitness, rejected, seed, 0, parents.size());
+        } else {
+            final int threshold = Math.max(
+                    1, parents.size() / (TASKS_PER_THREAD * pool.getParallelism()));
+            pool.invoke(new OffspringTask(
+                    parents, children, fitness, rejected, seed, 0, parents.size(), threshold));
+        }
+        if (fitnessCache != null) {
+            cachedFitnessOf(children, fitness, pool);
+        }
+
+        result.clear();
+        long produced = 0;
+        long duplicated = 0;
+        for (int i = 0; i < children.length; i++) {
+            if (rejected[i]) {
+                produced++;
+                duplicated++;
+            } else if (children[i] != null) {
+                produced++;
+                if (index == null || index.add(children[i].genomeHash())) {
+                    result.add(children[i], fitness[i]);
+                } else {
+                    duplicated++;
+                }
+            }
+        }
+        if (index != null) {
+            offspring += produced;
+            duplicates += duplicated;
+        }
+    }
+
+    private void breed(
+            final List<ImmutablePair<MagicSquare, MagicSquare>> parents,
+            final MagicSquare[] children,
+            final int[] fitness,
+            final boolean[] rejected,
+            final long seed,
+            final int from,
+            final int to) {
+        for (int i = from; i < to; i++) {
+            final RandomSource random = SplitMixRandom.forIndex(seed, i);
+            if (random.nextDouble() < configuration.crossoverProbability()) {
+                final ImmutablePair<MagicSquare, MagicSquare> p = parents.get(i);
+                long time = now();
+                MagicSquare child =
+                        algorithm.crossover(p.getLeft(), p.getRight(), random);
+                time = recordPhase(SolverMetrics.Phase.CROSSOVER, time);
+                if (random.nextDouble() < configuration.mutationProbability()) {
+                    child = algorithm.mutate(child, random);
+                    recordPhase(SolverMetrics.Phase.MUTATION, time);
+                }
+                if (index != null && index.contains(child.genomeHash())) {
+                    rejected[i] = true;
+                    continue;
+                }
+                children[i] = child;
+            }
+        }
+
+        if (fitnessCache == null) {
+            final long time = now();
+            evaluate(children, from, to, fitness);
+            recordPhase(SolverMetrics.Phase.EVALUATION, time);
+        } else {
+            for (int i = from; i < to; i++) {
+                if (children[i] != null) {
+                    children[i].genomeHash();
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks children up in the fitness cache, evaluates the missing ones in
+     * one batch split between threads of the pool and caches their fitness.
+     */
+    private void cachedFitnessOf(
+            final MagicSquare[] children, final int[] fitness, final ForkJoinPool pool) {
+        final MagicSquare[] missing = new MagicSquare[children.length];
+        for (int i = 0; i < children.length; i++) {
+            final MagicSquare child = children[i];
+            if (child == null) {
+                continue;
+            }
+            final long cached = fitnessCache.get(child.genomeHash());
+            if (cached == FitnessCache.MISS) {
+                missing[i] = child;
+            } else {
+                fitness[i] = (int) cached;
+            }
+        }
+
+        if (pool == null) {
+            final long time = now();
+            evaluate(missing, 0, missing.length, fitness);
+            recordPhase(SolverMetrics.Phase.EVALUATION, time);
+        } else {
+            final int threshold = Math.max(
+                    1, missing.length / (TASKS_PER_THREAD * pool.getParallelism()));
+            pool.invoke(new EvaluationTask(missing, fitness, 0, missing.length, threshold));
+        }
+
+        for (int i = 0; i < missing.length; i++) {
+            if (missing[i] != null) {
+                fitnessCache.put(missing[i].genomeHash(), fitness[i]);
+            }
+        }
+    }
+
+    private void evaluate(
+            final MagicSquare[] children, final int from, final int to, final int[] fitness) {
+        if (metrics != null) {
+            long count = 0;
+            for (int i = from; i < to; i++) {
+                if (children[i] != null) {
+                    count++;
+                }
+            }
+            metrics.recordEvaluations(count);
+        }
+        algorithm.fitnessOf(children, from, to, fitness);
+    }
+
+    private class OffspringTask extends RecursiveAction {
+        private final List<ImmutablePair<MagicSquare, MagicSquare>> parents;
+        private final MagicSquare[] children;
+        private final int[] fitness;
+        private final boolean[] rejected;
+        private final long seed;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private OffspringTask(
+                final List<ImmutablePair<MagicSquare, MagicSquare>> parents,
+                final MagicSquare[] children,
+                final int[] fitness,
+                final boolean[] rejected,
+                final long seed,
+                final int from,
+                final int to,
+                final int threshold) {
+            this.parents = parents;
+            this.children = children;
+            this.fitness = fitness;
+            this.rejected = rejected;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                // allocations of the thread running the solver are recorded per generation
+                final long allocated = (metrics != null
+                        && Thread.currentThread() instanceof ForkJoinWorkerThread)
+                        ? SolverMetrics.allocatedBytes()
+                        : -1;
+                breed(parents, children, fitness, rejected, seed, from, to);
+                if (allocated >= 0) {
+                    metrics.recordAllocation(SolverMetrics.allocatedBytes() - allocated);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                        new OffspringTask(
+                                parents, children, fitness, rejected, seed, from, middle, threshold),
+                        new OffspringTask(
+                                parents, children, fitness, rejected, seed, middle, to, threshold));
+            }
+        }
+    }
+
+    private class EvaluationTask extends RecursiveAction {
+        private final MagicSquare[] children;
+        private final int[] fitness;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private EvaluationTask(
+                final MagicSquare[] children,
+                final int[] fitness,
+                final int from,
+                final int to,
+                final int threshold) {
+            this.children = children;
+            this.fitness = fitness;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                final long time = now();
+                evaluate(children, from, to, fitness);
+                recordPhase(SolverMetrics.Phase.EVALUATION, time);
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                        new EvaluationTask(children, fitness, from, middle, threshold),
+                        new EvaluationTask(children, fitness, middle, to, threshold));
+            }
+        }
+    }
+
+    private class RefinementTask extends RecursiveAction {
+        private final Population<MagicSquare> children;
+        private final long[] ranked;
+        private final MagicSquare[] improved;
+        private final int[] fitness;
+        private final long seed;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private RefinementTask(
+                final Population<MagicSquare> children,
+                final long[] ranked,
+                final MagicSquare[] improved,
+                final int[] fitness,
+                final long seed,
+                final int from,
+                final int to,
+                final int threshold) {
+            this.children = children;
+            this.ranked = ranked;
+            this.improved = improved;
+            this.fitness = fitness;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                // allocations of the thread running the solver are recorded per generation
+                final long allocated = (metrics != null
+                        && Thread.currentThread() instanceof ForkJoinWorkerThread)
+                        ? SolverMetrics.allocatedBytes()
+                        : -1;
+                improve(children, ranked, improved, fitness, seed, from, to);
+                if (allocated >= 0) {
+                    metrics.recordAllocation(SolverMetrics.allocatedBytes() - allocated);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                        new RefinementTask(
+                                children, ranked, improved, fitness, seed, from, middle, threshold),
+                        new RefinementTask(
+                                children, ranked, improved, fitness, seed, middle, to, threshold));
+            }
+        }
+    }
+
+    private void indexOf(final Population<MagicSquare> population) {
+        if (index == null) {
+            index = new GenomeIndex(population.size() + population.size() / 2);
+        } else {
+            index.clear();
+        }
+        for (int i = 0; i < population.size(); i++) {
+            index.add(population.individual(i).genomeHash());
+        }
+    }
+
+    /**
+     * Individuals are never changed, so copying references is enough for
+     * the checkpoint to be written concurrently with the next generations.
+     */
+    private Checkpoint checkpointOf(
+            final Population<MagicSquare> population,
+            final long t,
+            final SplitMixRandom random,
+            final int bestFitness,
+            final long stagnation) {
+        return new Checkpoint(
+                configuration,
+                squareSize,
                 t,
-                population);
+                random.getState(),
+                bestFitness,
+                stagnation,
+                restarts,
+                population.copy());
     }
 
-    private ArrayListMultimap<Integer, MagicSquare> generateInitialPopulation(
-            final GeneticAlgorithm<MagicSquare> algorithm,
-            final int squareSize,
-            final long populationSize) {
-        final ArrayListMultimap<Integer, MagicSquare> initial =
-                ArrayListMultimap.create();
+    /**
+     * Keeps the elite, at least the best individual, and replaces the rest
+     * of the population by random individuals.
+     */
+    private Population<MagicSquare> restart(
+            final Population<MagicSquare> population, final RandomSource random) {
+        final int size = population.size();
+        final int elite = Math.max(1, (int) Math.ceil(configuration.eliteFraction() * size));
 
-        for (long i = 0; i < populationSize; i++) {
-            final MagicSquare square = algorithm.randomIndividual(squareSize);
-            initial.put(algorithm.fitnessOf(square), square);
+        final long[] ranked = new long[size];
+        for (int i = 0; i < size; i++) {
+            ranked[i] = ((long) population.fitness(i) << 32) | i;
         }
+        Arrays.sort(ranked);
+
+        final Population<MagicSquare> restarted = new Population<>(size);
+        for (int rank = 0; rank < elite; rank++) {
+            final int i = (int) ranked[rank];
+            restarted.add(population.individual(i), population.fitness(i));
+        }
+        addRandomIndividuals(restarted, size - elite, random);
+        return restarted;
+    }
+
+    private SolverResult<MagicSquare> findBestIndividual(
+            final Population<MagicSquare> population,
+            final long t,
+            final Throwable failure) {
+        return new SolverResult<>(
+                population.best(),
+                population.bestFitness(),
+                t,
+                population,
+                PopulationSummary.of(population, diversityOf(population)),
+                failure);
+    }
+
+    Population<MagicSquare> generateInitialPopulation(final RandomSource random) {
+        final long populationSize = configuration.populationSize();
+        final Population<MagicSquare> initial =
+                new Population<>((int) populationSize);
+        addRandomIndividuals(initial, (int) populationSize, random);
 
         return initial;
     }
 
-    private boolean isEvolutionFinished(
-            final long maxGeneration,
+    private void addRandomIndividuals(
+            final Population<MagicSquare> population,
+            final int count,
+            final RandomSource random) {
+        final MagicSquare[] squares = new MagicSquare[count];
+        for (int i = 0; i < count; i++) {
+            squares[i] = algorithm.randomIndividual(squareSize, random);
+        }
+        final int[] fitness = new int[count];
+        if (metrics != null) {
+            metrics.recordEvaluations(count);
+        }
+        algorithm.fitnessOf(squares, 0, count, fitness);
+        for (int i = 0; i < count; i++) {
+            population.add(squares[i], fitness[i]);
+        }
+    }
+
+    /**
+     * @param stall reason why evolution stalled, null if it didn't
+     * @return reason to stop evolution, null to continue it
+     */
+    private Termination terminationOf(
             final long currentGeneration,
-            final Multimap<Integer, MagicSquare> population) {
+            final Population<MagicSquare> population,
+            final Termination stall,
+            final long startTime) {
+        if (population.bestFitness() == 0) {
+            return Termination.SOLVED;
+        } else if (cancelled) {
+            return Termination.CANCELLED;
+        } else if (currentGeneration >= configuration.maxGenerations()) {
+            return Termination.MAX_GENERATIONS;
+        } else if (configuration.timeBudget() > 0
+                && System.currentTimeMillis() - startTime >= configuration.timeBudget()) {
+            return Termination.TIME_BUDGET;
+        }
+        return stall;
+    }
 
-        return population.containsKey(0) || currentGeneration >= maxGeneration;
+    /**
+     * @return reason why evolution stalled, null if it didn't
+     */
+    private Termination stallOf(
+            final Population<MagicSquare> population, final long stagnation) {
+        if (configuration.stagnationLimit() > 0
+                && stagnation >= configuration.stagnationLimit()) {
+            return Termination.STAGNATION;
+        } else if (configuration.diversityThreshold() > 0
+                && diversityOf(population) < configuration.diversityThreshold()) {
+            return Termination.LOW_DIVERSITY;
+        }
+        return null;
     }
 
-    @Override
-    protected SolverResult<MagicSquare> doInBackground() throws Exception {
-        return solve();
+    private double diversityOf(final Population<MagicSquare> population) {
+        if (distinct == null) {
+            distinct = new GenomeIndex(population.size());
+        } else {
+            distinct.clear();
+        }
+        for (int i = 0; i < population.size(); i++) {
+            distinct.add(population.individual(i).genomeHash());
+        }
+        return (double) distinct.size() / population.size();
+    }
+
+    /**
+     * @return percent of generations or of time budget passed, whichever
+     *         is greater
+     */
+    private int progressOf(final long t, final long startTime) {
+        long progress = 100 * t / configuration.maxGenerations();
+        if (configuration.timeBudget() > 0) {
+            progress = Math.max(
+                    progress,
+                    100 * (System.currentTimeMillis() - startTime) / configuration.timeBudget());
+        }
+        return (int) Math.min(100, progress);
     }
 
     public static void main(final String[] args) {
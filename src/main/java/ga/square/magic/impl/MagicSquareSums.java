@@ -0,0 +1,255 @@
+package ga.square.magic.impl;
+
+/**
+ * Row, column and diagonal sums of a square together with the fitness terms
+ * built from them and genome hash, so fitness and hash of a square obtained
+ * by swapping cells could be updated in O(1) per swap instead of being
+ * recomputed.
+ *
+ * All arithmetic wraps exactly like the full evaluation does, so the
+ * incrementally updated fitness always equals the recomputed one.
+ */
+final class MagicSquareSums {
+    private final int size;
+    private final int border;
+    private final int magicSum;
+    /** Sums of rows followed by sums of columns. */
+    private final int[] lines;
+    private int leftDiagonal;
+    private int rightDiagonal;
+    /** Sum of squared differences of magic sum and each line. */
+    private int deviation;
+    /** Asymmetric penalty before applying the symmetry multiplier. */
+    private int asymmetry;
+    /** Genome hash of the square. */
+    private long hash;
+
+    private MagicSquareSums(final int size) {
+        this.size = size;
+        this.border = size / 2;
+        this.magicSum = size * (size * size + 1) / 2;
+        this.lines = new int[2 * size];
+    }
+
+    private MagicSquareSums(final MagicSquareSums sums) {
+        this.size = sums.size;
+        this.border = sums.border;
+        this.magicSum = sums.magicSum;
+        this.lines = sums.lines.clone();
+        this.leftDiagonal = sums.leftDiagonal;
+        this.rightDiagonal = sums.rightDiagonal;
+        this.deviation = sums.deviation;
+        this.asymmetry = sums.asymmetry;
+        this.hash = sums.hash;
+    }
+
+    static MagicSquareSums of(final int[] genes, final int size) {
+        final MagicSquareSums sums = new MagicSquareSums(size);
+
+        LineSums.KERNEL.sums(genes, 0, size, sums.lines);
+        sums.leftDiagonal = leftDiagonal(genes, 0, size);
+        sums.rightDiagonal = rightDiagonal(genes, 0, size);
+
+        for (int i = 0; i < 2 * size; i++) {
+            sums.deviation += sums.lineDeviation(sums.lines[i]);
+        }
+        sums.deviation += sums.lineDeviation(sums.leftDiagonal);
+        sums.deviation += sums.lineDeviation(sums.rightDiagonal);
+
+        for (int y = 0; y < sums.border; y++) {
+            for (int x = 0; x < sums.border; x++) {
+                sums.asymmetry += sums.asymmetryTerm(genes, x, y);
+            }
+        }
+
+        sums.hash = GenomeHash.of(genes);
+
+        return sums;
+    }
+
+    /**
+     * Fitness of a square stored at the given offset, equal to fitness of
+     * its sums but computed without allocating them.
+     *
+     * @param lines buffer for sums of lines of at least 2 * size elements
+     * @param k multiplier for symmetry fitness
+     */
+    static int fitnessOf(
+            final int[] genes,
+            final int offset,
+            final int size,
+            final int[] lines,
+            final double k) {
+        final int magicSum = size * (size * size + 1) / 2;
+        LineSums.KERNEL.sums(genes, offset, size, lines);
+        int deviation = 0;
+        for (int i = 0; i < 2 * size; i++) {
+            deviation += squaredDiff(magicSum, lines[i]);
+        }
+        deviation += squaredDiff(magicSum, leftDiagonal(genes, offset, size));
+        deviation += squaredDiff(magicSum, rightDiagonal(genes, offset, size));
+
+        final int border = size / 2;
+        int asymmetry = 0;
+        for (int y = 0; y < border; y++) {
+            final int top = offset + y * size;
+            final int bottom = offset + (size - 1 - y) * size;
+            for (int x = 0; x < border; x++) {
+                final int leftDiff = squaredDiff(genes[top + x], genes[bottom + x]);
+                final int rightDiff = squaredDiff(
+                        genes[top + size - 1 - x], genes[bottom + size - 1 - x]);
+                asymmetry += squaredDiff(leftDiff, rightDiff);
+            }
+        }
+
+        return deviation + (int) (asymmetry * k);
+    }
+
+    MagicSquareSums copy() {
+        return new MagicSquareSums(this);
+    }
+
+    /**
+     * Replaces these sums with the copy of the given ones of the same size.
+     */
+    void set(final MagicSquareSums sums) {
+        System.arraycopy(sums.lines, 0, lines, 0, 2 * size);
+        leftDiagonal = sums.leftDiagonal;
+        rightDiagonal = sums.rightDiagonal;
+        deviation = sums.deviation;
+        asymmetry = sums.asymmetry;
+        hash = sums.hash;
+    }
+
+    /**
+     * @param k multiplier for symmetry fitness
+     */
+    int fitness(final double k) {
+        return deviation + (int) (asymmetry * k);
+    }
+
+    long hash() {
+        return hash;
+    }
+
+    /**
+     * Swaps genes at the given indices and updates sums and hash
+     * accordingly.
+     */
+    void swap(final int[] genes, final int i, final int j) {
+        final int ithGene = genes[i];
+        final int jthGene = genes[j];
+        if (i == j || ithGene == jthGene) {
+            return;
+        }
+
+        final int ix = i % size;
+        final int iy = i / size;
+        final int jx = j % size;
+        final int jy = j / size;
+
+        final int ithTerm = asymmetryTermIndex(ix, iy);
+        final int jthTerm = asymmetryTermIndex(jx, jy);
+        if (ithTerm >= 0) {
+            asymmetry -= asymmetryTerm(genes, ithTerm % border, ithTerm / border);
+        }
+        if (jthTerm >= 0 && jthTerm != ithTerm) {
+            asymmetry -= asymmetryTerm(genes, jthTerm % border, jthTerm / border);
+        }
+
+        genes[i] = jthGene;
+        genes[j] = ithGene;
+        hash = GenomeHash.swap(hash, i, ithGene, j, jthGene);
+
+        if (ithTerm >= 0) {
+            asymmetry += asymmetryTerm(genes, ithTerm % border, ithTerm / border);
+        }
+        if (jthTerm >= 0 && jthTerm != ithTerm) {
+            asymmetry += asymmetryTerm(genes, jthTerm % border, jthTerm / border);
+        }
+
+        final int delta = jthGene - ithGene;
+        if (iy != jy) {
+            lines[iy] = updateLine(lines[iy], delta);
+            lines[jy] = updateLine(lines[jy], -delta);
+        }
+        if (ix != jx) {
+            lines[size + ix] = updateLine(lines[size + ix], delta);
+            lines[size + jx] = updateLine(lines[size + jx], -delta);
+        }
+
+        int leftDelta = 0;
+        if (ix == iy) {
+            leftDelta += delta;
+        }
+        if (jx == jy) {
+            leftDelta -= delta;
+        }
+        if (leftDelta != 0) {
+            leftDiagonal = updateLine(leftDiagonal, leftDelta);
+        }
+
+        int rightDelta = 0;
+        if (ix == size - 1 - iy) {
+            rightDelta += delta;
+        }
+        if (jx == size - 1 - jy) {
+            rightDelta -= delta;
+        }
+        if (rightDelta != 0) {
+            rightDiagonal = updateLine(rightDiagonal, rightDelta);
+        }
+    }
+
+    private static int leftDiagonal(final int[] genes, final int offset, final int size) {
+        int sum = 0;
+        for (int i = 0, cell = offset; i < size; i++, cell += size + 1) {
+            sum += genes[cell];
+        }
+        return sum;
+    }
+
+    private static int rightDiagonal(final int[] genes, final int offset, final int size) {
+        int sum = 0;
+        for (int i = 0, cell = offset + size - 1; i < size; i++, cell += size - 1) {
+            sum += genes[cell];
+        }
+        return sum;
+    }
+
+    private int updateLine(final int sum, final int delta) {
+        deviation -= lineDeviation(sum);
+        deviation += lineDeviation(sum + delta);
+        return sum + delta;
+    }
+
+    private int lineDeviation(final int sum) {
+        return squaredDiff(magicSum, sum);
+    }
+
+    /**
+     * Index of the asymmetry term the cell contributes to, or -1 if it lies
+     * on the middle row or column of an odd square.
+     */
+    private int asymmetryTermIndex(final int x, final int y) {
+        final int termX = Math.min(x, size - 1 - x);
+        final int termY = Math.min(y, size - 1 - y);
+        if (termX >= border || termY >= border) {
+            return -1;
+        }
+        return termY * border + termX;
+    }
+
+    private int asymmetryTerm(final int[] genes, final int x, final int y) {
+        final int top = y * size;
+        final int bottom = (size - 1 - y) * size;
+        final int leftDiff = squaredDiff(genes[top + x], genes[bottom + x]);
+        final int rightDiff =
+                squaredDiff(genes[top + size - 1 - x], genes[bottom + size - 1 - x]);
+        return squaredDiff(leftDiff, rightDiff);
+    }
+
+    private static int squaredDiff(final int x, final int y) {
+        return (x - y) * (x - y);
+    }
+}
@@ -0,0 +1,134 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Population of squares of the same size kept in a {@link GenomeStore}:
+ * genes of all individuals are stored contiguously with stride equal to
+ * the number of cells of a square, either in a single array or outside of
+ * the heap. Operators work on genes copied to arrays and squares are
+ * created only on request.
+ */
+final class PackedPopulation implements Closeable {
+    private final int squareSize;
+    private final GenomeStore store;
+    private int size;
+
+    PackedPopulation(final int squareSize, final int capacity) {
+        this(squareSize, GenomeStore.heap(capacity, squareSize * squareSize));
+    }
+
+    /**
+     * @param store store of genomes of length squareSize^2
+     */
+    PackedPopulation(final int squareSize, final GenomeStore store) {
+        checkArgument(squareSize > 0, "Size of square should be positive");
+        checkArgument(store != null, "Illegal argument store: null");
+        checkArgument(
+                store.stride() == squareSize * squareSize,
+                "Store has different length of genomes");
+        this.squareSize = squareSize;
+        this.store = store;
+    }
+
+    int squareSize() {
+        return squareSize;
+    }
+
+    int stride() {
+        return store.stride();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return store.capacity();
+    }
+
+    /**
+     * @param size number of individuals, slots beyond the previous size
+     *             should be written afterwards
+     */
+    void setSize(final int size) {
+        checkArgument(size >= 0 && size <= capacity(), "Illegal size: " + size);
+        this.size = size;
+    }
+
+    /**
+     * Copies genes of the individual to genes starting from the offset.
+     */
+    void read(final int index, final int[] genes, final int offset) {
+        store.read(index, genes, offset);
+    }
+
+    /**
+     * Replaces the individual with genes starting from the offset.
+     */
+    void write(final int index, final int[] genes, final int offset, final int fitness) {
+        store.write(index, genes, offset);
+        store.setFitness(index, fitness);
+    }
+
+    int fitness(final int index) {
+        return store.fitness(index);
+    }
+
+    /**
+     * Copies fitness of all individuals to the array starting from the
+     * offset.
+     */
+    void readFitness(final int[] fitness, final int offset) {
+        for (int i = 0; i < size; i++) {
+            fitness[offset + i] = store.fitness(i);
+        }
+    }
+
+    /**
+     * Copies genes and fitness of the individual to a slot of the target,
+     * which could be this population.
+     */
+    void copy(final int index, final PackedPopulation target, final int targetIndex) {
+        store.copy(index, target.store, targetIndex);
+    }
+
+    int bestIndex() {
+        checkArgument(size > 0, "Population is empty");
+
+        int best = 0;
+        int bestFitness = store.fitness(0);
+        for (int i = 1; i < size; i++) {
+            final int fitness = store.fitness(i);
+            if (fitness < bestFitness) {
+                best = i;
+                bestFitness = fitness;
+            }
+        }
+        return best;
+    }
+
+    MagicSquare square(final int index) {
+        final int[] genes = new int[stride()];
+        store.read(index, genes, 0);
+        return new MagicSquare(genes, squareSize);
+    }
+
+    Population<MagicSquare> toPopulation() {
+        final Population<MagicSquare> population = new Population<>(size);
+        for (int i = 0; i < size; i++) {
+            population.add(square(i), store.fitness(i));
+        }
+        return population;
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
@@ -0,0 +1,445 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.GeneticAlgorithm;
+import ga.square.magic.PopulationSummary;
+import ga.square.magic.RandomSource;
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.SplitMixRandom;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Solver running the operators of {@link MagicSquareGA} on a
+ * {@link PackedPopulation}: genes of all individuals are stored in one array,
+ * so evaluation scans memory sequentially and the garbage collector sees a
+ * few large arrays instead of an object per individual. Squares are created
+ * only for reported results.
+ *
+ * Genes could be stored outside of the heap, see {@link Storage}, then heap
+ * holds only a few ints per individual for selection and the final result
+ * doesn't contain the population.
+ *
+ * Random numbers are drawn in the same order as by {@link MagicSquareSolver},
+ * so both solvers evolve the same population for the same configuration.
+ * Refinement, rejection of duplicates, fitness cache, checkpoints and
+ * stall policies aren't supported.
+ */
+public class PackedSolver
+        implements Solver<MagicSquare, GeneticAlgorithm<MagicSquare>> {
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Where genes and fitness of individuals are stored.
+     */
+    public enum Storage {
+        /** Arrays on the heap. */
+        HEAP,
+        /** Direct buffers, limited by -XX:MaxDirectMemorySize. */
+        DIRECT,
+        /** Temporary file mapped to memory, paged out when memory is short. */
+        MAPPED
+    }
+
+    private final int T;
+    private final double k;
+    private final int squareSize;
+    private final SolverConfiguration configuration;
+    private final List<Listener<MagicSquare>> listeners;
+
+    private volatile boolean cancelled;
+    private Storage storage = Storage.HEAP;
+    private Path directory;
+
+    /** Indices of parents, father and mother of every pair. */
+    private int[] parents;
+    private int[] candidates;
+    private boolean[] produced;
+    private int[] survivors;
+    private boolean[] removed;
+
+    public PackedSolver(
+            final MagicSquareGA algorithm,
+            final int squareSize,
+            final SolverConfiguration configuration) {
+        checkArgument(algorithm != null, "Illegal argument algorithm: null");
+        checkArgument(configuration != null, "Illegal argument configuration: null");
+        checkArgument(squareSize > 1, "Size of square should be greater than 1");
+        checkArgument(
+                configuration.populationSize() > 1,
+                "Population should contain more than one individual");
+        checkArgument(
+                configuration.refinementFraction() == 0,
+                "Packed solver doesn't support refinement");
+        checkArgument(
+                !configuration.rejectDuplicates(),
+                "Packed solver doesn't support rejection of duplicates");
+        checkArgument(
+                configuration.fitnessCacheSize() == 0,
+                "Packed solver doesn't support fitness cache");
+        checkArgument(
+                configuration.checkpointPath() == null,
+                "Packed solver doesn't support checkpoints");
+        checkArgument(
+                configuration.stagnationLimit() == 0
+                        && configuration.diversityThreshold() == 0
+                        && configuration.restarts() == 0,
+                "Packed solver doesn't support stall policies");
+
+        this.T = algorithm.tournamentSize();
+        this.k = algorithm.symmetryMultiplier();
+        this.squareSize = squareSize;
+        this.configuration = configuration;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public void addListener(final Listener<MagicSquare> listener) {
+        checkArgument(listener != null, "Illegal argument listener: null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener<MagicSquare> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Makes solve() store individuals in the given storage, should be called
+     * before solve().
+     *
+     * @param directory directory of temporary files for {@link Storage#MAPPED}
+     */
+    public void storeGenomes(final Storage storage, final Path directory) {
+        checkArgument(storage != null, "Illegal argument storage: null");
+        checkArgument(
+                storage != Storage.MAPPED || directory != null,
+                "Illegal argument directory: null");
+        this.storage = storage;
+        this.directory = directory;
+    }
+
+    /**
+     * Stops evolution after the current generation, solve() returns the
+     * best individual found so far.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public SolverResult<MagicSquare> solve() {
+        final SplitMixRandom random = new SplitMixRandom(configuration.seed());
+        final long startTime = System.currentTimeMillis();
+
+        final SolverResult<MagicSquare> result;
+        // both stores are released even if evolution or releasing one fails
+        try (final PackedPopulation population = generateInitialPopulation(random);
+             final PackedPopulation children = newPopulation(population.size() / 2)) {
+            result = solve(population, children, random, startTime);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't release population", e);
+        }
+
+        final long elapsed = System.currentTimeMillis() - startTime;
+        for (final Listener<MagicSquare> listener : listeners) {
+            listener.finished(result, elapsed);
+        }
+
+        return result;
+    }
+
+    private SolverResult<MagicSquare> solve(
+            final PackedPopulation population,
+            final PackedPopulation children,
+            final SplitMixRandom random,
+            final long startTime) {
+        final ForkJoinPool pool = (configuration.parallelism() > 1)
+                ? new ForkJoinPool(configuration.parallelism())
+                : null;
+
+        long t = 0;
+        final SolverResult<MagicSquare> result;
+        try {
+            while (!isEvolutionFinished(t, population, startTime)) {
+                if (t % configuration.getN() == 0 && !listeners.isEmpty()) {
+                    final int best = population.bestIndex();
+                    final SolverResult<MagicSquare> currentBestIndividual = new SolverResult<>(
+                            population.square(best),
+                            population.fitness(best),
+                            t,
+                            null,
+                            summaryOf(population));
+                    final int progress = (int) (100 * t / configuration.maxGenerations());
+                    for (final Listener<MagicSquare> listener : listeners) {
+                        listener.progress(currentBestIndividual, progress);
+                    }
+                }
+
+                t += 1;
+
+                evolve(population, children, pool, random);
+            }
+
+            final int best = population.bestIndex();
+            result = (storage == Storage.HEAP)
+                    ? new SolverResult<>(
+                            population.square(best),
+                            population.fitness(best),
+                            t,
+                            population.toPopulation())
+                    : new SolverResult<>(
+                            population.square(best),
+                            population.fitness(best),
+                            t,
+                            null,
+                            summaryOf(population));
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Evolves population by one generation in place.
+     *
+     * @param children buffer for children with capacity of half of the
+     *                 population, its previous content is dropped
+     * @param pool pool producing offspring, null to produce them on the
+     *             calling thread
+     */
+    void evolve(
+            final PackedPopulation population,
+            final PackedPopulation children,
+            final ForkJoinPool pool,
+            final RandomSource random) {
+        final int pairs = population.size() / 2;
+        if (parents == null || parents.length != 2 * pairs) {
+            parents = new int[2 * pairs];
+            candidates = new int[population.size()];
+            produced = new boolean[pairs];
+            survivors = new int[population.size() + pairs];
+            removed = new boolean[population.size() + pairs];
+        }
+
+        selectParents(population.size(), random);
+        offspringOf(population, children, pool, random.nextLong());
+        nextGeneration(population, children, random);
+    }
+
+    /**
+     * Parent pairs are selected randomly, as by
+     * {@link MagicSquareGA#selectParents}.
+     */
+    private void selectParents(final int size, final RandomSource random) {
+        for (int i = 0; i < size; i++) {
+            candidates[i] = i;
+        }
+
+        int pair = 0;
+        for (int i = size; i > 1; i -= 2) {
+            final int father = random.nextInt(0, i);
+            swap(candidates, father, i - 1);
+            final int mother = random.nextInt(0, i - 1);
+            swap(candidates, mother, i - 2);
+
+            parents[pair++] = candidates[i - 1];
+            parents[pair++] = candidates[i - 2];
+        }
+    }
+
+    /**
+     * Child of every pair is written to the slot of the pair, produced
+     * children are then moved to the beginning of the buffer in order of
+     * pairs.
+     */
+    private void offspringOf(
+            final PackedPopulation population,
+            final PackedPopulation children,
+            final ForkJoinPool pool,
+            final long seed) {
+        final int pairs = produced.length;
+        children.setSize(pairs);
+        if (pool == null) {
+            breed(population, children, seed, 0, pairs);
+        } else {
+            final int threshold = Math.max(
+                    1, pairs / (TASKS_PER_THREAD * pool.getParallelism()));
+            pool.invoke(new OffspringTask(population, children, seed, 0, pairs, threshold));
+        }
+
+        int count = 0;
+        for (int i = 0; i < pairs; i++) {
+            if (produced[i]) {
+                if (i != count) {
+                    children.copy(i, children, count);
+                }
+                count++;
+            }
+        }
+        children.setSize(count);
+    }
+
+    private void breed(
+            final PackedPopulation population,
+            final PackedPopulation children,
+            final long seed,
+            final int from,
+            final int to) {
+        final int length = population.stride();
+        // father, mother and child
+        final int[] genes = new int[3 * length];
+        final int[] lines = new int[2 * squareSize];
+        final int child = 2 * length;
+        for (int i = from; i < to; i++) {
+            final RandomSource random = SplitMixRandom.forIndex(seed, i);
+            produced[i] = random.nextDouble() < configuration.crossoverProbability();
+            if (produced[i]) {
+                population.read(parents[2 * i], genes, 0);
+                population.read(parents[2 * i + 1], genes, length);
+                MagicSquareGA.crossover(genes, 0, genes, length, genes, child, length, random);
+                if (random.nextDouble() < configuration.mutationProbability()) {
+                    MagicSquareGA.mutate(genes, child, squareSize, null, random);
+                }
+                children.write(
+                        i,
+                        genes,
+                        child,
+                        MagicSquareSums.fitnessOf(genes, child, squareSize, lines, k));
+            }
+        }
+    }
+
+    private class OffspringTask extends RecursiveAction {
+        private final PackedPopulation population;
+        private final PackedPopulation children;
+        private final long seed;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private OffspringTask(
+                final PackedPopulation population,
+                final PackedPopulation children,
+                final long seed,
+                final int from,
+                final int to,
+                final int threshold) {
+            this.population = population;
+            this.children = children;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                breed(population, children, seed, from, to);
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                        new OffspringTask(population, children, seed, from, middle, threshold),
+                        new OffspringTask(population, children, seed, middle, to, threshold));
+            }
+        }
+    }
+
+    /**
+     * Tournament survivor selection, as by
+     * {@link MagicSquareGA#nextGenerationFrom}: losers are replaced by
+     * surviving children in place.
+     */
+    private void nextGeneration(
+            final PackedPopulation population,
+            final PackedPopulation children,
+            final RandomSource random) {
+        final int populationSize = population.size();
+        final int total = populationSize + children.size();
+        population.readFitness(survivors, 0);
+        children.readFitness(survivors, populationSize);
+        Arrays.fill(removed, false);
+
+        TournamentSelection.selectLosers(
+                survivors, total, T, children.size(), removed, random);
+
+        int child = populationSize;
+        for (int i = 0; i < populationSize; i++) {
+            if (removed[i]) {
+                while (removed[child]) {
+                    child++;
+                }
+                children.copy(child - populationSize, population, i);
+                child++;
+            }
+        }
+    }
+
+    PackedPopulation generateInitialPopulation(final RandomSource random) {
+        final int size = (int) configuration.populationSize();
+        final PackedPopulation initial = newPopulation(size);
+        initial.setSize(size);
+
+        final int[] genes = new int[initial.stride()];
+        final int[] lines = new int[2 * squareSize];
+        for (int i = 0; i < size; i++) {
+            MagicSquareGA.randomGenes(genes, 0, genes.length, random);
+            initial.write(
+                    i, genes, 0, MagicSquareSums.fitnessOf(genes, 0, squareSize, lines, k));
+        }
+
+        return initial;
+    }
+
+    private PackedPopulation newPopulation(final int capacity) {
+        final int stride = squareSize * squareSize;
+        switch (storage) {
+            case HEAP:
+                return new PackedPopulation(squareSize, GenomeStore.heap(capacity, stride));
+            case DIRECT:
+                return new PackedPopulation(squareSize, GenomeStore.direct(capacity, stride));
+            case MAPPED:
+                try {
+                    return new PackedPopulation(
+                            squareSize, GenomeStore.mapped(directory, capacity, stride));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Can't map population to file", e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+    }
+
+    private static PopulationSummary summaryOf(final PackedPopulation population) {
+        final int[] fitness = new int[population.size()];
+        population.readFitness(fitness, 0);
+        return PopulationSummary.of(fitness, fitness.length);
+    }
+
+    private boolean isEvolutionFinished(
+            final long currentGeneration,
+            final PackedPopulation population,
+            final long startTime) {
+        return population.fitness(population.bestIndex()) == 0
+                || currentGeneration >= configuration.maxGenerations()
+                || cancelled
+                || (configuration.timeBudget() > 0
+                        && System.currentTimeMillis() - startTime >= configuration.timeBudget());
+    }
+
+    private static void swap(final int[] values, final int i, final int j) {
+        final int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,23 @@
+package ga.square.magic.impl;
+
+import java.util.Arrays;
+
+/**
+ * Plain loops, the inner one is vectorized by HotSpot.
+ */
+final class ScalarLineSums extends LineSums {
+    @Override
+    void sums(final int[] genes, final int offset, final int size, final int[] lines) {
+        Arrays.fill(lines, size, 2 * size, 0);
+        for (int y = 0; y < size; y++) {
+            final int row = offset + y * size;
+            int sum = 0;
+            for (int x = 0; x < size; x++) {
+                final int gene = genes[row + x];
+                sum += gene;
+                lines[size + x] += gene;
+            }
+            lines[y] = sum;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.RandomSource;
+
+/**
+ * Tournament survivor selection over fitness values of individuals indexed
+ * from 0 to total - 1.
+ *
+ * Every individual plays T games against random opponents and wins a game
+ * when opponent's fitness is bigger. Individuals with the fewest wins are
+ * removed, among individuals with equal wins the ones with bigger index are
+ * removed first. Wins are bounded by T, so losers are found with a counting
+ * pass instead of sorting, which makes selection O(total * T).
+ */
+final class TournamentSelection {
+    private TournamentSelection() {}
+
+    /**
+     * @param fitness fitness of individuals
+     * @param total number of individuals
+     * @param T size of tournament
+     * @param count number of individuals to remove
+     * @param removed flags set for removed individuals
+     */
+    static void selectLosers(
+            final int[] fitness,
+            final int total,
+            final int T,
+            final int count,
+            final boolean[] removed,
+            final RandomSource random) {
+        final int[] wins = new int[total];
+        final int[] counts = new int[T + 1];
+
+        for (int e = 0; e < total; e++) {
+            int games = 0;
+            int won = 0;
+            while (games < T) {
+                final int rand = random.nextInt(total);
+                if (rand != e) {
+                    games += 1;
+                    if (fitness[rand] > fitness[e]) {
+                        won += 1;
+                    }
+                }
+            }
+            wins[e] = won;
+            counts[won] += 1;
+        }
+
+        int threshold = 0;
+        int belowThreshold = 0;
+        while (belowThreshold + counts[threshold] < count) {
+            belowThreshold += counts[threshold];
+            threshold += 1;
+        }
+
+        int atThreshold = count - belowThreshold;
+        for (int i = total - 1; i >= 0; i--) {
+            if (wins[i] < threshold) {
+                removed[i] = true;
+            } else if (wins[i] == threshold && atThreshold > 0) {
+                removed[i] = true;
+                atThreshold -= 1;
+            }
+        }
+    }
+}
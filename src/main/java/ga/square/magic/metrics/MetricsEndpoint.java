@@ -0,0 +1,56 @@
+package ga.square.magic.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * HTTP endpoint on the loopback interface serving metrics as text at
+ * /metrics, see {@link SolverMetrics#writeTo(Appendable)}.
+ */
+@SuppressWarnings("restriction")
+public class MetricsEndpoint implements Closeable {
+    private final HttpServer server;
+
+    /**
+     * @param port port to listen on, 0 to choose any free one
+     */
+    public MetricsEndpoint(final SolverMetrics metrics, final int port) throws IOException {
+        checkArgument(metrics != null, "Illegal argument metrics: null");
+
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final StringBuilder text = new StringBuilder();
+                metrics.writeTo(text);
+                final byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,252 @@
+package ga.square.magic.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Counters of a running solver: time spent in every phase of generations,
+ * number of generations and evaluations, memory allocated and statistics
+ * of the last generation. Phases of offspring are recorded concurrently by
+ * threads breeding it.
+ *
+ * Solvers record metrics only if they are given some, so disabled metrics
+ * cost nothing. Metrics could be read through JMX after
+ * {@link #register(String)} or as text by {@link #writeTo(Appendable)}.
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+    /**
+     * Part of a generation.
+     *
+     * Selection, refinement and replacement are timed by the solver thread,
+     * so their times are wall-clock. Crossover, mutation and evaluation of
+     * offspring are timed by every thread breeding it and summed, so with
+     * parallelism above 1 they are CPU time which could exceed wall-clock
+     * time of the generation.
+     */
+    public enum Phase {
+        SELECTION,
+        CROSSOVER,
+        MUTATION,
+        EVALUATION,
+        REFINEMENT,
+        REPLACEMENT
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final StripedCounter[] phases;
+    private final StripedCounter evaluations;
+    private final StripedCounter allocated;
+
+    private volatile long startNanos;
+    private volatile long generations;
+    private volatile int bestFitness;
+    private volatile double meanFitness;
+    private volatile double diversity;
+
+    public SolverMetrics() {
+        this.phases = new StripedCounter[Phase.values().length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new StripedCounter();
+        }
+        this.evaluations = new StripedCounter();
+        this.allocated = new StripedCounter();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Resets all counters, rates are measured from now on.
+     */
+    public void start() {
+        for (final StripedCounter phase : phases) {
+            phase.reset();
+        }
+        evaluations.reset();
+        allocated.reset();
+        generations = 0;
+        bestFitness = 0;
+        meanFitness = 0;
+        diversity = 0;
+        startNanos = System.nanoTime();
+    }
+
+    public void recordPhase(final Phase phase, final long nanos) {
+        phases[phase.ordinal()].add(nanos);
+    }
+
+    public void recordEvaluations(final long count) {
+        evaluations.add(count);
+    }
+
+    public void recordAllocation(final long bytes) {
+        allocated.add(bytes);
+    }
+
+    /**
+     * Called by the solver thread after every generation.
+     *
+     * @param diversity share of distinct individuals of the population
+     */
+    public void recordGeneration(
+            final int bestFitness, final double meanFitness, final double diversity) {
+        this.bestFitness = bestFitness;
+        this.meanFitness = meanFitness;
+        this.diversity = diversity;
+        generations++;
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, -1 if JVM
+     *         doesn't measure them
+     */
+    @SuppressWarnings("restriction")
+    public static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public long phaseNanos(final Phase phase) {
+        return phases[phase.ordinal()].sum();
+    }
+
+    @Override
+    public long getGenerations() {
+        return generations;
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public double getGenerationsPerSecond() {
+        return perSecond(generations);
+    }
+
+    @Override
+    public double getEvaluationsPerSecond() {
+        return perSecond(evaluations.sum());
+    }
+
+    @Override
+    public double getAllocatedBytesPerGeneration() {
+        final long count = generations;
+        return (count == 0) ? 0 : (double) allocated.sum() / count;
+    }
+
+    @Override
+    public int getBestFitness() {
+        return bestFitness;
+    }
+
+    @Override
+    public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override
+    public double getDiversity() {
+        return diversity;
+    }
+
+    @Override
+    public long getSelectionNanos() {
+        return phaseNanos(Phase.SELECTION);
+    }
+
+    @Override
+    public long getCrossoverNanos() {
+        return phaseNanos(Phase.CROSSOVER);
+    }
+
+    @Override
+    public long getMutationNanos() {
+        return phaseNanos(Phase.MUTATION);
+    }
+
+    @Override
+    public long getEvaluationNanos() {
+        return phaseNanos(Phase.EVALUATION);
+    }
+
+    @Override
+    public long getRefinementNanos() {
+        return phaseNanos(Phase.REFINEMENT);
+    }
+
+    @Override
+    public long getReplacementNanos() {
+        return phaseNanos(Phase.REPLACEMENT);
+    }
+
+    /**
+     * Registers metrics in the platform MBean server, replacing metrics
+     * registered under the same name.
+     *
+     * @param name name of the solver, e.g. id of a batch job
+     */
+    public ObjectName register(final String name) throws JMException {
+        checkArgument(name != null, "Illegal argument name: null");
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(
+                "ga.square.magic:type=SolverMetrics,name=" + ObjectName.quote(name));
+        try {
+            server.registerMBean(this, objectName);
+        } catch (InstanceAlreadyExistsException e) {
+            server.unregisterMBean(objectName);
+            server.registerMBean(this, objectName);
+        }
+        return objectName;
+    }
+
+    /**
+     * Writes metrics as lines of name and value separated by space.
+     */
+    public void writeTo(final Appendable out) throws IOException {
+        checkArgument(out != null, "Illegal argument out: null");
+
+        line(out, "generations", getGenerations());
+        line(out, "evaluations", getEvaluations());
+        line(out, "generations_per_second", getGenerationsPerSecond());
+        line(out, "evaluations_per_second", getEvaluationsPerSecond());
+        line(out, "allocated_bytes_per_generation", getAllocatedBytesPerGeneration());
+        line(out, "best_fitness", getBestFitness());
+        line(out, "mean_fitness", getMeanFitness());
+        line(out, "diversity", getDiversity());
+        for (final Phase phase : Phase.values()) {
+            line(out, phase.name().toLowerCase(Locale.ROOT) + "_nanos", phaseNanos(phase));
+        }
+    }
+
+    private double perSecond(final long count) {
+        final long elapsed = System.nanoTime() - startNanos;
+        return (elapsed <= 0) ? 0 : count * 1e9 / elapsed;
+    }
+
+    private static void line(final Appendable out, final String name, final long value)
+            throws IOException {
+        out.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static void line(final Appendable out, final String name, final double value)
+            throws IOException {
+        out.append(name).append(' ')
+                .append(String.format(Locale.ROOT, "%.3f", value)).append('\n');
+    }
+}
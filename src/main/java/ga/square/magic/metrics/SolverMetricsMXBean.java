@@ -0,0 +1,35 @@
+package ga.square.magic.metrics;
+
+/**
+ * Management interface of {@link SolverMetrics}, times are in nanoseconds
+ * and are measured as described by {@link SolverMetrics.Phase}.
+ */
+public interface SolverMetricsMXBean {
+    long getGenerations();
+
+    long getEvaluations();
+
+    double getGenerationsPerSecond();
+
+    double getEvaluationsPerSecond();
+
+    double getAllocatedBytesPerGeneration();
+
+    int getBestFitness();
+
+    double getMeanFitness();
+
+    double getDiversity();
+
+    long getSelectionNanos();
+
+    long getCrossoverNanos();
+
+    long getMutationNanos();
+
+    long getEvaluationNanos();
+
+    long getRefinementNanos();
+
+    long getReplacementNanos();
+}
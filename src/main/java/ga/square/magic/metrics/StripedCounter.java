@@ -0,0 +1,42 @@
+package ga.square.magic.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter updated concurrently by several threads: every thread adds to its
+ * own cell chosen by thread id, cells are padded to separate cache lines.
+ */
+final class StripedCounter {
+    private static final int STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+    /** Longs per cell, 128 bytes cover adjacent cache line prefetching. */
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    void add(final long value) {
+        cells.getAndAdd(stripe() * PADDING, value);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+
+    private static int stripe() {
+        final long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9e3779b97f4a7c15L) >>> 32) & (STRIPES - 1);
+    }
+
+    private static int stripesFor(final int processors) {
+        return Integer.highestOneBit(Math.max(1, processors) * 2 - 1) << 1;
+    }
+}
@@ -0,0 +1,26 @@
+package ga.square.magic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PopulationSummaryTest {
+    @Test
+    public void shouldSummarizeFitnessOfPopulation() {
+        final Population<String> population = new Population<>(9);
+        for (final int fitness : new int[]{9, 1, 8, 2, 7, 3, 6, 4, 5}) {
+            population.add("individual" + fitness, fitness);
+        }
+
+        final PopulationSummary summary = PopulationSummary.of(population);
+
+        assertEquals(9, summary.getSize());
+        assertEquals(5.0, summary.getMean(), 1e-9);
+        assertEquals(1, summary.getBest());
+        assertEquals(3, summary.getLowerQuartile());
+        assertEquals(5, summary.getMedian());
+        assertEquals(7, summary.getUpperQuartile());
+        assertEquals(9, summary.getWorst());
+        assertEquals(1.0, summary.getDiversity(), 1e-9);
+    }
+}
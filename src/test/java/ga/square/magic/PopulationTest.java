@@ -0,0 +1,65 @@
+package ga.square.magic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PopulationTest {
+    @Test
+    public void shouldGrowBeyondInitialCapacity() {
+        final Population<String> population = new Population<>(1);
+
+        for (int i = 0; i < 20; i++) {
+            population.add("individual" + i, i);
+        }
+
+        assertEquals(20, population.size());
+        assertEquals("individual19", population.individual(19));
+        assertEquals(19, population.fitness(19));
+    }
+
+    @Test
+    public void shouldTrackBestIndividualOnAdd() {
+        final Population<String> population = new Population<>(3);
+        population.add("a", 5);
+        population.add("b", 2);
+        population.add("c", 7);
+
+        assertEquals("b", population.best());
+        assertEquals(2, population.bestFitness());
+    }
+
+    @Test
+    public void shouldFindNewBestAfterBestIsReplaced() {
+        final Population<String> population = new Population<>(3);
+        population.add("a", 5);
+        population.add("b", 2);
+        population.add("c", 7);
+
+        population.set(1, "d", 10);
+
+        assertEquals("a", population.best());
+        assertEquals(5, population.bestFitness());
+    }
+
+    @Test
+    public void copyShouldNotChangeWithOriginal() {
+        final Population<String> population = new Population<>(2);
+        population.add("a", 5);
+        population.add("b", 2);
+
+        final Population<String> copy = population.copy();
+        population.set(0, "c", 0);
+
+        assertEquals("a", copy.individual(0));
+        assertEquals(2, copy.bestFitness());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldntAccessIndividualsOutsideOfPopulation() {
+        final Population<String> population = new Population<>(2);
+        population.add("a", 5);
+
+        population.individual(1);
+    }
+}
@@ -0,0 +1,61 @@
+package ga.square.magic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SplitMixRandomTest {
+    @Test
+    public void sameSeedShouldProduceSameSequence() {
+        final SplitMixRandom first = new SplitMixRandom(42);
+        final SplitMixRandom second = new SplitMixRandom(42);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    @Test
+    public void stateShouldContinueSequence() {
+        final SplitMixRandom random = new SplitMixRandom(7);
+        random.nextLong();
+
+        final SplitMixRandom restored = new SplitMixRandom(random.getState());
+
+        assertEquals(random.nextLong(), restored.nextLong());
+    }
+
+    @Test
+    public void generatorsForDifferentIndexesShouldDiffer() {
+        assertNotEquals(
+                SplitMixRandom.forIndex(1, 0).nextLong(),
+                SplitMixRandom.forIndex(1, 1).nextLong());
+    }
+
+    @Test
+    public void nextIntShouldStayWithinBounds() {
+        final SplitMixRandom random = new SplitMixRandom(1);
+        final int[] counts = new int[7];
+
+        for (int i = 0; i < 7000; i++) {
+            final int value = random.nextInt(3, 10);
+            assertTrue(value >= 3 && value < 10);
+            counts[value - 3]++;
+        }
+        for (final int count : counts) {
+            assertTrue(count > 800 && count < 1200);
+        }
+    }
+
+    @Test
+    public void nextDoubleShouldStayWithinUnitInterval() {
+        final SplitMixRandom random = new SplitMixRandom(1);
+
+        for (int i = 0; i < 1000; i++) {
+            final double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ga.square.magic;
+
+import ga.square.magic.impl.MagicSquare;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StatisticsSinkTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteStatisticsAndSnapshotsOfReportedGenerations()
+            throws IOException {
+        final Path statistics = folder.getRoot().toPath().resolve("statistics.csv");
+        final Path snapshots = folder.getRoot().toPath().resolve("snapshots.csv");
+        final StatisticsSink<MagicSquare> sink = new StatisticsSink<>(statistics, snapshots);
+
+        final MagicSquare ordered = new MagicSquare(2);
+        final MagicSquare reversed = new MagicSquare(Arrays.asList(4, 3, 2, 1));
+        final Population<MagicSquare> population = new Population<>(4);
+        population.add(ordered, 2);
+        population.add(ordered, 4);
+        population.add(reversed, 6);
+        population.add(reversed, 8);
+
+        sink.progress(new Solver.SolverResult<>(ordered, 2, 0, population), 0);
+        sink.progress(new Solver.SolverResult<>(ordered, 2, 10, null), 50);
+        sink.finished(new Solver.SolverResult<>(ordered, 2, 20, population), 100);
+
+        final List<String> rows = Files.readAllLines(statistics, StandardCharsets.UTF_8);
+        assertEquals(4, rows.size());
+        assertEquals(StatisticsSink.HEADER, rows.get(0));
+        final String[] first = rows.get(1).split(",", -1);
+        assertEquals("0", first[0]);
+        assertEquals("2", first[3]);
+        assertEquals("5.0", first[4]);
+        assertEquals("4", first[5]);
+        assertEquals("8", first[6]);
+        assertEquals("0.5", first[7]);
+        final String[] second = rows.get(2).split(",", -1);
+        assertEquals("10", second[0]);
+        assertEquals("", second[4]);
+        assertEquals("", second[7]);
+        assertEquals("20", rows.get(3).split(",", -1)[0]);
+
+        final List<String> populations = Files.readAllLines(snapshots, StandardCharsets.UTF_8);
+        assertEquals(9, populations.size());
+        assertEquals("0,6,4 3 2 1", populations.get(3));
+    }
+
+    @Test
+    public void sinkWithoutSnapshotsShouldNotCopyPopulation() throws IOException {
+        final Path statistics = folder.getRoot().toPath().resolve("statistics.csv");
+        final StatisticsSink<MagicSquare> sink = new StatisticsSink<>(statistics, null);
+
+        final MagicSquare ordered = new MagicSquare(2);
+        final Population<MagicSquare> population = new Population<>(2);
+        population.add(ordered, 2);
+        population.add(ordered, 4);
+
+        final Solver.SolverResult<MagicSquare> result = Solver.SolverResult.onDemand(
+                ordered, 2, 0, population, PopulationSummary.of(population, 0.5));
+        sink.progress(result, 0);
+        result.release();
+        sink.close();
+
+        assertNull(result.getPopulation());
+        final List<String> rows = Files.readAllLines(statistics, StandardCharsets.UTF_8);
+        assertEquals("0.5", rows.get(1).split(",", -1)[7]);
+    }
+}
@@ -0,0 +1,87 @@
+package ga.square.magic.batch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSolverTest {
+    @Test
+    public void shouldParseJob() {
+        final SolveJob job = SolveJob.parse("job-1 5 1000 200 0.9 0.2 50 1.0 60000");
+
+        assertEquals("job-1", job.getId());
+        assertEquals(5, job.getSquareSize());
+        assertEquals(1000, job.getConfiguration().populationSize());
+        assertEquals(200, job.getConfiguration().maxGenerations());
+        assertEquals(0.9, job.getConfiguration().crossoverProbability(), 1e-9);
+        assertEquals(0.2, job.getConfiguration().mutationProbability(), 1e-9);
+        assertEquals(50, job.getTournamentSize());
+        assertEquals(1.0, job.getSymmetryMultiplier(), 1e-9);
+        assertEquals(60000, job.getTimeoutMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldntParseIncompleteJob() {
+        SolveJob.parse("job-1 5 1000");
+    }
+
+    @Test
+    public void shouldDeliverResultOfEveryJob() throws InterruptedException {
+        final List<SolveJob> jobs = Arrays.asList(
+                SolveJob.parse("a 3 50 10 1.0 0.4 5 1.0 0"),
+                SolveJob.parse("b 4 50 10 1.0 0.4 5 1.0 0"),
+                SolveJob.parse("c 5 50 10 1.0 0.4 5 1.0 0"));
+        final List<JobResult> results =
+                Collections.synchronizedList(new ArrayList<JobResult>());
+
+        new BatchSolver(2).solveAll(jobs, new CollectingListener(results));
+
+        final Set<String> ids = new HashSet<>();
+        for (final JobResult result : results) {
+            ids.add(result.getJob().getId());
+            assertEquals(
+                    result.getJob().getSquareSize() * result.getJob().getSquareSize(),
+                    result.getResult().getResult().chromosome().size());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), ids);
+    }
+
+    @Test
+    public void shouldStopJobAfterTimeout() throws InterruptedException {
+        final List<JobResult> results =
+                Collections.synchronizedList(new ArrayList<JobResult>());
+
+        new BatchSolver(1).solveAll(
+                Arrays.asList(SolveJob.parse("slow 30 200 1000000000 1.0 0.4 5 1.0 50")),
+                new CollectingListener(results));
+
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).isTimedOut());
+    }
+
+    private static class CollectingListener implements BatchSolver.Listener {
+        private final List<JobResult> results;
+
+        private CollectingListener(final List<JobResult> results) {
+            this.results = results;
+        }
+
+        @Override
+        public void completed(final JobResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void failed(final SolveJob job, final Throwable error) {
+            throw new AssertionError(error);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Solver;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnnealingSolverTest {
+    @Test
+    public void schedulesShouldCoolFromInitialToFinalTemperature() {
+        for (final AnnealingConfiguration.Schedule schedule
+                : AnnealingConfiguration.Schedule.values()) {
+            assertEquals(100, schedule.temperature(100, 1, 0, 1000), 1e-9);
+            assertEquals(1, schedule.temperature(100, 1, 1000, 1000), 1e-9);
+            assertTrue(schedule.temperature(100, 1, 500, 1000) < 100);
+        }
+    }
+
+    @Test
+    public void annealingShouldSolveSquare() {
+        final AnnealingConfiguration configuration = new AnnealingConfiguration.Builder()
+                .steps(1000000)
+                .initialTemperature(1000)
+                .finalTemperature(0.5)
+                .restarts(2)
+                .chains(2)
+                .N(10000)
+                .seed(1)
+                .build();
+
+        final Solver.SolverResult<MagicSquare> result =
+                new AnnealingSolver(0, 6, configuration).solve();
+
+        assertEquals(0, result.getFitness());
+        assertEquals(0, new MagicSquareGA(1, 0).fitnessOf(result.getResult()));
+    }
+
+    @Test
+    public void chainWithSameSeedShouldBeReproducible() {
+        final AnnealingConfiguration configuration = new AnnealingConfiguration.Builder()
+                .steps(20000)
+                .initialTemperature(100)
+                .finalTemperature(1)
+                .schedule(AnnealingConfiguration.Schedule.EXPONENTIAL)
+                .restarts(1)
+                .N(1000)
+                .seed(7)
+                .build();
+
+        final Solver.SolverResult<MagicSquare> first =
+                new AnnealingSolver(1, 7, configuration).solve();
+        final Solver.SolverResult<MagicSquare> second =
+                new AnnealingSolver(1, 7, configuration).solve();
+
+        assertEquals(first.getResult(), second.getResult());
+        assertEquals(first.getFitness(), second.getFitness());
+        assertEquals(
+                new MagicSquareGA(1, 1).fitnessOf(new MagicSquare(first.getResult().chromosome())),
+                first.getFitness());
+    }
+}
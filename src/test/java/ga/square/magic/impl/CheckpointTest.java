@@ -0,0 +1,178 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.SplitMixRandom;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CheckpointTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void checkpointShouldBeReadAsWritten() throws IOException {
+        for (final int size : new int[]{5, 17}) {
+            final Path path = folder.getRoot().toPath().resolve("checkpoint" + size);
+            final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                    .maxGenerations(100)
+                    .populationSize(30)
+                    .N(10)
+                    .crossoverProbability(0.9)
+                    .mutationProbability(0.2)
+                    .seed(7)
+                    .checkpoint(path, 25)
+                    .refinement(0.1, 100)
+                    .rejectDuplicates(true)
+                    .fitnessCache(1000, SolverConfiguration.CachePolicy.LRU)
+                    .timeBudget(60000)
+                    .stagnationLimit(50)
+                    .diversityThreshold(0.5)
+                    .restarts(3, 0.2)
+                    .build();
+            final MagicSquareGA algorithm = new MagicSquareGA(10, 1);
+            final SplitMixRandom random = new SplitMixRandom(7);
+            final Population<MagicSquare> population = new Population<>(30);
+            for (int i = 0; i < 30; i++) {
+                final MagicSquare square = algorithm.randomIndividual(size, random);
+                population.add(square, algorithm.fitnessOf(square));
+            }
+
+            new Checkpoint(configuration, size, 42, random.getState(), 12, 5, 2, population)
+                    .write(path);
+            final Checkpoint read = Checkpoint.read(path);
+
+            assertEquals(size, read.getSquareSize());
+            assertEquals(42, read.getGeneration());
+            assertEquals(random.getState(), read.getRandomState());
+            assertEquals(30, read.getConfiguration().populationSize());
+            assertEquals(7, read.getConfiguration().seed());
+            assertEquals(path, read.getConfiguration().checkpointPath());
+            assertEquals(25, read.getConfiguration().checkpointInterval());
+            assertEquals(100, read.getConfiguration().refinementBudget());
+            assertTrue(read.getConfiguration().rejectDuplicates());
+            assertEquals(1000, read.getConfiguration().fitnessCacheSize());
+            assertEquals(
+                    SolverConfiguration.CachePolicy.LRU,
+                    read.getConfiguration().fitnessCachePolicy());
+            assertEquals(60000, read.getConfiguration().timeBudget());
+            assertEquals(50, read.getConfiguration().stagnationLimit());
+            assertEquals(0.5, read.getConfiguration().diversityThreshold(), 0);
+            assertEquals(3, read.getConfiguration().restarts());
+            assertEquals(0.2, read.getConfiguration().eliteFraction(), 0);
+            assertEquals(12, read.getBestFitness());
+            assertEquals(5, read.getStagnation());
+            assertEquals(2, read.getRestarts());
+            assertEquals(population.size(), read.getPopulation().size());
+            for (int i = 0; i < population.size(); i++) {
+                assertEquals(population.individual(i), read.getPopulation().individual(i));
+                assertEquals(population.fitness(i), read.getPopulation().fitness(i));
+            }
+        }
+    }
+
+    @Test
+    public void resumedSolverShouldKeepRestartsAndStagnation() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("restarted");
+        final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                .populationSize(50)
+                .N(5)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(3)
+                .stagnationLimit(3)
+                .restarts(4, 0.1);
+
+        final MagicSquareSolver uninterrupted = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 10, builder.maxGenerations(60).build());
+        final Solver.SolverResult<MagicSquare> expected = uninterrupted.solve();
+
+        new MagicSquareSolver(
+                new MagicSquareGA(10, 1),
+                10,
+                builder.maxGenerations(10).checkpoint(path, 4).build()).solve();
+        final MagicSquareSolver resumed = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 10, builder.maxGenerations(60).build());
+        resumed.resumeFrom(Checkpoint.read(path));
+        final Solver.SolverResult<MagicSquare> result = resumed.solve();
+
+        assertEquals(expected.getResult(), result.getResult());
+        assertEquals(expected.getGeneration(), result.getGeneration());
+        assertEquals(uninterrupted.restarts(), resumed.restarts());
+        assertEquals(uninterrupted.termination(), resumed.termination());
+    }
+
+    @Test
+    public void resumedSolverShouldContinueAsUninterrupted() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("checkpoint");
+        final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                .populationSize(100)
+                .N(5)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(42);
+
+        final Solver.SolverResult<MagicSquare> uninterrupted = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 5, builder.maxGenerations(20).build()).solve();
+
+        new MagicSquareSolver(
+                new MagicSquareGA(10, 1),
+                5,
+                builder.maxGenerations(10).checkpoint(path, 4).build()).solve();
+        final Checkpoint checkpoint = Checkpoint.read(path);
+        final MagicSquareSolver resumed = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 5, builder.maxGenerations(20).build());
+        resumed.resumeFrom(checkpoint);
+        final Solver.SolverResult<MagicSquare> result = resumed.solve();
+
+        assertEquals(10, checkpoint.getGeneration());
+        assertEquals(uninterrupted.getResult(), result.getResult());
+        assertEquals(uninterrupted.getFitness(), result.getFitness());
+        assertEquals(uninterrupted.getGeneration(), result.getGeneration());
+    }
+
+    @Test
+    public void failedCheckpointShouldBeReportedWithResult() {
+        final Path path = folder.getRoot().toPath().resolve("missing").resolve("checkpoint");
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1),
+                5,
+                new SolverConfiguration.Builder()
+                        .maxGenerations(10)
+                        .populationSize(100)
+                        .N(5)
+                        .crossoverProbability(1.0)
+                        .mutationProbability(0.4)
+                        .seed(42)
+                        .checkpoint(path, 4)
+                        .build());
+        final Solver.SolverResult<?>[] finished = new Solver.SolverResult<?>[1];
+        solver.addListener(new Solver.Listener<MagicSquare>() {
+            @Override
+            public void progress(final Solver.SolverResult<MagicSquare> result, final int progress) {
+            }
+
+            @Override
+            public void finished(final Solver.SolverResult<MagicSquare> result, final long elapsedMillis) {
+                finished[0] = result;
+            }
+        });
+
+        final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+        assertEquals(10, result.getGeneration());
+        assertNotNull(result.getResult());
+        assertTrue(result.getFailure() instanceof IOException);
+        assertSame(result, finished[0]);
+    }
+}
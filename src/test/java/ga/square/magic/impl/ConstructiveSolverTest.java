@@ -0,0 +1,75 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConstructiveSolverTest {
+    @Test
+    public void constructedSquaresShouldBeMagic() {
+        final MagicSquareGA algorithm = new MagicSquareGA(1, 0);
+
+        for (int size = 1; size <= 30; size++) {
+            if (size == 2) {
+                continue;
+            }
+            final MagicSquare square = ConstructiveSolver.construct(size);
+
+            final Set<Integer> genes = new HashSet<>(square.chromosome());
+            assertEquals(size * size, genes.size());
+            assertTrue(genes.contains(1) && genes.contains(size * size));
+            assertEquals("size " + size, 0, algorithm.fitnessOf(square));
+        }
+    }
+
+    @Test
+    public void oddAndDoublyEvenSquaresShouldBeSymmetric() {
+        final MagicSquareGA algorithm = new MagicSquareGA(1, 1);
+
+        for (final int size : new int[]{3, 4, 5, 8, 9, 12, 15}) {
+            assertEquals(0, algorithm.fitnessOf(ConstructiveSolver.construct(size)));
+        }
+        assertNotEquals(0, algorithm.fitnessOf(ConstructiveSolver.construct(6)));
+    }
+
+    @Test
+    public void shouldConstructLargeSquares() {
+        final MagicSquare square = ConstructiveSolver.construct(2002);
+
+        assertEquals(0, new MagicSquareGA(1, 0).fitnessOf(square));
+    }
+
+    @Test
+    public void squareOfSizeTwoShouldNotBeConstructible() {
+        assertFalse(ConstructiveSolver.isConstructible(2));
+    }
+
+    @Test
+    public void dispatcherShouldEvolveSquareIfConstructedOneIsNotOptimal() {
+        final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                .maxGenerations(5)
+                .populationSize(20)
+                .N(5)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(1)
+                .build();
+
+        final Solver.SolverResult<MagicSquare> constructed = new DispatchingSolver(
+                new MagicSquareGA(10, 0), 6, configuration).solve();
+        final Solver.SolverResult<MagicSquare> evolved = new DispatchingSolver(
+                new MagicSquareGA(10, 1), 6, configuration).solve();
+
+        assertEquals(0, constructed.getFitness());
+        assertEquals(0, constructed.getGeneration());
+        assertTrue(evolved.getGeneration() > 0);
+    }
+}
@@ -0,0 +1,64 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.SolverConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FitnessCacheTest {
+    @Test
+    public void lruCacheShouldEvictLeastRecentlyUsedHash() {
+        final FitnessCache cache = FitnessCache.of(SolverConfiguration.CachePolicy.LRU, 2);
+        cache.put(1, 10);
+        cache.put(2, 20);
+        cache.get(1);
+        cache.put(3, 30);
+
+        assertEquals(10, cache.get(1));
+        assertEquals(FitnessCache.MISS, cache.get(2));
+        assertEquals(30, cache.get(3));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void clockCacheShouldGiveReferencedHashSecondChance() {
+        final FitnessCache cache = FitnessCache.of(SolverConfiguration.CachePolicy.CLOCK, 2);
+        cache.put(1, 10);
+        cache.put(2, 20);
+        cache.get(2);
+        cache.put(3, 30);
+
+        assertEquals(FitnessCache.MISS, cache.get(1));
+        assertEquals(20, cache.get(2));
+        assertEquals(30, cache.get(3));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void cacheShouldStayBoundedAfterManyEvictions() {
+        for (final SolverConfiguration.CachePolicy policy
+                : SolverConfiguration.CachePolicy.values()) {
+            final FitnessCache cache = FitnessCache.of(policy, 100);
+            for (long hash = 0; hash < 100000; hash++) {
+                cache.put(hash * 0x9e3779b97f4a7c15L, (int) hash);
+            }
+
+            assertEquals(100, cache.size());
+            for (long hash = 99900; hash < 100000; hash++) {
+                assertEquals(hash, cache.get(hash * 0x9e3779b97f4a7c15L));
+            }
+        }
+    }
+
+    @Test
+    public void cacheShouldCountHitsAndMisses() {
+        final FitnessCache cache = FitnessCache.of(SolverConfiguration.CachePolicy.CLOCK, 4);
+        cache.get(1);
+        cache.put(1, 0);
+        cache.get(1);
+        cache.get(1);
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+}
@@ -0,0 +1,38 @@
+package ga.square.magic.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GenomeIndexTest {
+    @Test
+    public void shouldContainAddedHashes() {
+        final GenomeIndex index = new GenomeIndex(4);
+
+        for (long hash = -500; hash < 500; hash++) {
+            assertTrue(index.add(hash * 0x9e3779b97f4a7c15L));
+        }
+
+        assertEquals(1000, index.size());
+        for (long hash = -500; hash < 500; hash++) {
+            assertTrue(index.contains(hash * 0x9e3779b97f4a7c15L));
+            assertFalse(index.add(hash * 0x9e3779b97f4a7c15L));
+        }
+        assertFalse(index.contains(1));
+    }
+
+    @Test
+    public void clearShouldRemoveAllHashes() {
+        final GenomeIndex index = new GenomeIndex(4);
+        index.add(0);
+        index.add(42);
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertFalse(index.contains(0));
+        assertFalse(index.contains(42));
+    }
+}
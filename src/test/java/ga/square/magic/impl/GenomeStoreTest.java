@@ -0,0 +1,94 @@
+package ga.square.magic.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GenomeStoreTest {
+    private static final int CAPACITY = 10;
+    private static final int STRIDE = 9;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void storesShouldKeepGenomesAndFitness() throws IOException {
+        for (final GenomeStore store : stores()) {
+            for (int i = 0; i < CAPACITY; i++) {
+                store.write(i, genomeOf(i), 1);
+                store.setFitness(i, -i);
+            }
+
+            for (int i = 0; i < CAPACITY; i++) {
+                final int[] genes = new int[STRIDE + 2];
+                store.read(i, genes, 2);
+                assertArrayEquals(genomeOf(i), shifted(genes, 1));
+                assertEquals(-i, store.fitness(i));
+            }
+            store.close();
+        }
+    }
+
+    @Test
+    public void genomesShouldBeCopiedBetweenStores() throws IOException {
+        final List<GenomeStore> stores = stores();
+        for (final GenomeStore source : stores) {
+            source.write(3, genomeOf(3), 1);
+            source.setFitness(3, 33);
+            for (final GenomeStore target : stores) {
+                if (target != source) {
+                    source.copy(3, target, 7);
+
+                    final int[] genes = new int[STRIDE + 1];
+                    genes[0] = -1;
+                    target.read(7, genes, 1);
+                    assertArrayEquals(genomeOf(3), genes);
+                    assertEquals(33, target.fitness(7));
+                }
+            }
+            source.copy(3, source, 0);
+            assertEquals(33, source.fitness(0));
+        }
+        for (final GenomeStore store : stores) {
+            store.close();
+        }
+    }
+
+    private List<GenomeStore> stores() throws IOException {
+        final List<GenomeStore> stores = new ArrayList<>();
+        stores.add(GenomeStore.heap(CAPACITY, STRIDE));
+        stores.add(GenomeStore.direct(CAPACITY, STRIDE));
+        stores.add(GenomeStore.mapped(folder.getRoot().toPath(), CAPACITY, STRIDE));
+        // segments of 3 genomes
+        stores.add(BufferGenomeStore.direct(CAPACITY, STRIDE, 3 * STRIDE + 2));
+        stores.add(BufferGenomeStore.mapped(
+                folder.getRoot().toPath(), CAPACITY, STRIDE, 3 * STRIDE + 2));
+        return stores;
+    }
+
+    /**
+     * @return genome preceded by a gene which shouldn't be stored
+     */
+    private static int[] genomeOf(final int index) {
+        final int[] genes = new int[STRIDE + 1];
+        genes[0] = -1;
+        for (int i = 0; i < STRIDE; i++) {
+            genes[i + 1] = index * STRIDE + i;
+        }
+        return genes;
+    }
+
+    private static int[] shifted(final int[] genes, final int shift) {
+        final int[] result = new int[genes.length - shift];
+        System.arraycopy(genes, shift, result, 0, result.length);
+        result[0] = -1;
+        return result;
+    }
+}
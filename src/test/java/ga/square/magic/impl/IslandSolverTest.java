@@ -0,0 +1,62 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.SplitMixRandom;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IslandSolverTest {
+    @Test
+    public void ringShouldSendToNextIsland() {
+        assertEquals(
+                Arrays.asList(1),
+                IslandSolver.targetsOf(0, 3, IslandSolver.Topology.RING, null));
+        assertEquals(
+                Arrays.asList(0),
+                IslandSolver.targetsOf(2, 3, IslandSolver.Topology.RING, null));
+    }
+
+    @Test
+    public void fullyConnectedShouldSendToAllOtherIslands() {
+        assertEquals(
+                Arrays.asList(0, 2, 3),
+                IslandSolver.targetsOf(1, 4, IslandSolver.Topology.FULLY_CONNECTED, null));
+    }
+
+    @Test
+    public void randomShouldSendToOtherIsland() {
+        final SplitMixRandom random = new SplitMixRandom(42);
+        for (int i = 0; i < 100; i++) {
+            final List<Integer> targets =
+                    IslandSolver.targetsOf(1, 3, IslandSolver.Topology.RANDOM, random);
+            assertEquals(1, targets.size());
+            assertFalse(targets.contains(1));
+        }
+    }
+
+    @Test
+    public void shouldReturnBestIndividualOfAllIslands() {
+        final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                .maxGenerations(30)
+                .populationSize(50)
+                .N(10)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .build();
+        final MagicSquareGA algorithm = new MagicSquareGA(10, 1);
+        final IslandSolver solver = new IslandSolver(
+                algorithm, 4, configuration, 3, 5, 2, IslandSolver.Topology.RING);
+
+        final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+        assertTrue(result.getGeneration() <= 30);
+        assertEquals(algorithm.fitnessOf(result.getResult()), result.getFitness());
+    }
+}
@@ -0,0 +1,60 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.SplitMixRandom;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class LineSumsTest {
+    @Test
+    public void scalarKernelShouldSumRowsAndColumns() {
+        assertSumsOfLines(new ScalarLineSums());
+    }
+
+    @Test
+    public void selectedKernelShouldSumRowsAndColumns() {
+        assertSumsOfLines(LineSums.KERNEL);
+    }
+
+    @Test
+    public void vectorKernelShouldSumRowsAndColumns() {
+        final LineSums kernel;
+        try {
+            kernel = (LineSums) Class.forName(LineSums.VECTOR_KERNEL)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Assume.assumeNoException(e);
+            return;
+        }
+        assertSumsOfLines(kernel);
+    }
+
+    private static void assertSumsOfLines(final LineSums kernel) {
+        final SplitMixRandom random = new SplitMixRandom(5);
+        for (int size = 1; size <= 50; size++) {
+            final int offset = random.nextInt(0, 10);
+            final int[] genes = new int[offset + size * size];
+            for (int i = 0; i < genes.length; i++) {
+                // large genes make sums wrap
+                genes[i] = random.nextInt(Integer.MAX_VALUE) - Integer.MAX_VALUE / 3;
+            }
+            final int[] expected = new int[2 * size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    expected[y] += genes[offset + y * size + x];
+                    expected[size + x] += genes[offset + y * size + x];
+                }
+            }
+
+            final int[] lines = new int[2 * size + 1];
+            lines[2 * size] = 42;
+            kernel.sums(genes, offset, size, lines);
+
+            final int[] actual = new int[2 * size];
+            System.arraycopy(lines, 0, actual, 0, actual.length);
+            assertArrayEquals("size " + size, expected, actual);
+            assertArrayEquals(new int[]{42}, new int[]{lines[2 * size]});
+        }
+    }
+}
@@ -1,18 +1,23 @@
 package ga.square.magic.impl;
 
+import ga.square.magic.RandomSource;
+import ga.square.magic.SplitMixRandom;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.Arrays;
+import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MagicSquareGATest {
     private MagicSquareGA algorithm;
+    private RandomSource random;
 
     @Before
     public void setup() {
         algorithm = new MagicSquareGA(1, 1);
+        random = new SplitMixRandom(42);
     }
 
     @Test
@@ -27,4 +32,177 @@ public class MagicSquareGATest {
                 Arrays.asList(2, 7, 6, 9, 5, 1, 4, 3, 8));
         assertEquals(0, algorithm.fitnessOf(ms));
     }
+
+    @Test
+    public void batchFitnessShouldMatchFitnessOfEachIndividual() {
+        final MagicSquareGA symmetric = new MagicSquareGA(1, 3.5);
+        final MagicSquare[] squares = new MagicSquare[40];
+        for (int i = 0; i < squares.length; i++) {
+            if (i % 7 == 3) {
+                continue;
+            }
+            squares[i] = symmetric.randomIndividual(2 + i % 11, random);
+            if (i % 5 == 0) {
+                squares[i] = symmetric.mutate(squares[i], random);
+            } else if (i % 5 == 1) {
+                symmetric.fitnessOf(squares[i]);
+                squares[i] = symmetric.mutate(squares[i], random);
+            }
+        }
+
+        final int[] fitness = new int[squares.length];
+        Arrays.fill(fitness, -1);
+        symmetric.fitnessOf(squares, 2, squares.length - 1, fitness);
+
+        for (int i = 0; i < squares.length; i++) {
+            if (i < 2 || i == squares.length - 1 || squares[i] == null) {
+                assertEquals(-1, fitness[i]);
+            } else {
+                assertEquals(symmetric.fitnessOf(squares[i]), fitness[i]);
+            }
+        }
+    }
+
+    @Test
+    public void crossoverShouldProduceSquareWithAllNumbers() {
+        final MagicSquare father = algorithm.randomIndividual(5, random);
+        final MagicSquare mother = algorithm.randomIndividual(5, random);
+
+        final MagicSquare child = algorithm.crossover(father, mother, random);
+
+        final Set<Integer> genes = new HashSet<>(child.chromosome());
+        assertEquals(25, genes.size());
+        for (int i = 1; i <= 25; i++) {
+            assertTrue(genes.contains(i));
+        }
+    }
+
+    @Test
+    public void mutationShouldProduceSquareWithAllNumbers() {
+        final MagicSquare individual = algorithm.randomIndividual(5, random);
+
+        for (int i = 0; i < 100; i++) {
+            final MagicSquare mutant = algorithm.mutate(individual, random);
+            assertEquals(
+                    new HashSet<>(individual.chromosome()),
+                    new HashSet<>(mutant.chromosome()));
+        }
+    }
+
+    @Test
+    public void incrementalFitnessOfMutantsShouldMatchFullEvaluation() {
+        final MagicSquareGA ga = new MagicSquareGA(1, 0.7);
+
+        for (int size = 2; size <= 9; size++) {
+            MagicSquare individual = ga.randomIndividual(size, random);
+            ga.fitnessOf(individual);
+
+            for (int i = 0; i < 500; i++) {
+                individual = ga.mutate(individual, random);
+                assertEquals(
+                        ga.fitnessOf(new MagicSquare(individual.chromosome())),
+                        ga.fitnessOf(individual));
+            }
+        }
+    }
+
+    @Test
+    public void improveShouldNotMakeIndividualWorse() {
+        for (int size = 3; size <= 8; size++) {
+            final MagicSquare individual = algorithm.randomIndividual(size, random);
+            final int fitness = algorithm.fitnessOf(individual);
+
+            final MagicSquare improved = algorithm.improve(individual, 1000, random);
+
+            assertTrue(algorithm.fitnessOf(improved) <= fitness);
+            assertEquals(
+                    algorithm.fitnessOf(new MagicSquare(improved.chromosome())),
+                    algorithm.fitnessOf(improved));
+            assertEquals(
+                    new HashSet<>(individual.chromosome()),
+                    new HashSet<>(improved.chromosome()));
+        }
+    }
+
+    @Test
+    public void incrementalHashOfMutantsShouldMatchFullHash() {
+        MagicSquare individual = algorithm.randomIndividual(6, random);
+        algorithm.fitnessOf(individual);
+
+        for (int i = 0; i < 500; i++) {
+            individual = algorithm.mutate(individual, random);
+            assertEquals(
+                    new MagicSquare(individual.chromosome()).genomeHash(),
+                    individual.genomeHash());
+        }
+    }
+
+    @Test
+    public void crossoverShouldKeepDistributionOfSetBasedPbx() {
+        final int size = 4;
+        final int length = size * size;
+        final MagicSquare father = new MagicSquare(size);
+        final List<Integer> reversed = new ArrayList<>(father.chromosome());
+        Collections.reverse(reversed);
+        final MagicSquare mother = new MagicSquare(reversed);
+
+        final int samples = 20000;
+        final double[][] expected = new double[length][length + 1];
+        final double[][] actual = new double[length][length + 1];
+        for (int i = 0; i < samples; i++) {
+            final List<Integer> reference =
+                    setBasedPbx(father.chromosome(), mother.chromosome());
+            final List<Integer> child =
+                    algorithm.crossover(father, mother, random).chromosome();
+            for (int position = 0; position < length; position++) {
+                expected[position][reference.get(position)] += 1.0 / samples;
+                actual[position][child.get(position)] += 1.0 / samples;
+            }
+        }
+
+        for (int position = 0; position < length; position++) {
+            for (int gene = 1; gene <= length; gene++) {
+                assertEquals(expected[position][gene], actual[position][gene], 0.03);
+            }
+        }
+    }
+
+    /**
+     * PBX as it was originally implemented on top of collections.
+     */
+    private static List<Integer> setBasedPbx(
+            final List<Integer> father, final List<Integer> mother) {
+        final Random random = new Random();
+        final Set<Integer> unusedGenes = new HashSet<>(father);
+
+        final Set<Integer> positions = new HashSet<>();
+        final int positionsQuantity = 1 + random.nextInt(father.size() - 1);
+        final List<Integer> unusedPositions = new ArrayList<>();
+        for (int i = 0; i < father.size(); i++) {
+            unusedPositions.add(i);
+        }
+        while (positions.size() != positionsQuantity) {
+            positions.add(unusedPositions.remove(
+                    random.nextInt(unusedPositions.size())));
+        }
+
+        final Map<Integer, Integer> child = new HashMap<>();
+        for (final Integer position : positions) {
+            final int gene = father.get(position);
+            unusedGenes.remove(gene);
+            child.put(position, gene);
+        }
+        for (final Integer gene : mother) {
+            if (unusedGenes.contains(gene)) {
+                child.put(unusedPositions.remove(0), gene);
+                unusedGenes.remove(gene);
+            }
+        }
+
+        final List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < father.size(); i++) {
+            result.add(child.get(i));
+        }
+        return result;
+    }
 }
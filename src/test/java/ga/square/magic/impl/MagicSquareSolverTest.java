@@ -0,0 +1,353 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.metrics.SolverMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MagicSquareSolverTest {
+    private SolverConfiguration configuration;
+
+    @Before
+    public void setup() {
+        configuration = new SolverConfiguration.Builder()
+                .maxGenerations(20)
+                .populationSize(100)
+                .N(5)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .build();
+    }
+
+    @Test
+    public void listenersShouldReceiveProgressAndResult() {
+        final MagicSquareSolver solver =
+                new MagicSquareSolver(new MagicSquareGA(10, 1), 4, configuration);
+        final List<Solver.SolverResult<MagicSquare>> progress = new ArrayList<>();
+        final List<Solver.SolverResult<MagicSquare>> finished = new ArrayList<>();
+        solver.addListener(new Solver.Listener<MagicSquare>() {
+            @Override
+            public void progress(
+                    final Solver.SolverResult<MagicSquare> result, final int percent) {
+                progress.add(result);
+            }
+
+            @Override
+            public void finished(
+                    final Solver.SolverResult<MagicSquare> result, final long elapsedMillis) {
+                finished.add(result);
+            }
+        });
+
+        final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+        assertTrue(!progress.isEmpty());
+        assertEquals(0, progress.get(0).getGeneration());
+        assertEquals(1, finished.size());
+        assertSame(result, finished.get(0));
+    }
+
+    @Test
+    public void cancelledSolverShouldStopImmediately() {
+        final MagicSquareSolver solver =
+                new MagicSquareSolver(new MagicSquareGA(10, 1), 4, configuration);
+
+        solver.cancel();
+        final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+        assertEquals(0, result.getGeneration());
+        assertEquals(16, result.getResult().chromosome().size());
+    }
+
+    @Test
+    public void solverWithSameSeedShouldBeReproducible() {
+        final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                .maxGenerations(20)
+                .populationSize(100)
+                .N(5)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(42);
+
+        final Solver.SolverResult<MagicSquare> sequential = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 5, builder.parallelism(1).build()).solve();
+        final Solver.SolverResult<MagicSquare> parallel = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 5, builder.parallelism(3).build()).solve();
+
+        assertEquals(sequential.getResult(), parallel.getResult());
+        assertEquals(sequential.getFitness(), parallel.getFitness());
+        assertEquals(sequential.getGeneration(), parallel.getGeneration());
+    }
+
+    @Test
+    public void parallelRefinementShouldBeReproducible() {
+        final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                .maxGenerations(20)
+                .populationSize(100)
+                .N(5)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(42)
+                .rejectDuplicates(true)
+                .refinement(0.3, 20);
+
+        final Solver.SolverResult<MagicSquare> sequential = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 6, builder.parallelism(1).build()).solve();
+        final Solver.SolverResult<MagicSquare> parallel = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 6, builder.parallelism(3).build()).solve();
+
+        assertEquals(sequential.getResult(), parallel.getResult());
+        assertEquals(sequential.getFitness(), parallel.getFitness());
+        assertEquals(sequential.getGeneration(), parallel.getGeneration());
+    }
+
+    @Test
+    public void refinedSolverShouldSolveSquare() {
+        final SolverConfiguration refined = new SolverConfiguration.Builder()
+                .maxGenerations(1000)
+                .populationSize(100)
+                .N(1000)
+                .crossoverProbability(0.9)
+                .mutationProbability(0.4)
+                .seed(3)
+                .refinement(0.05, 5000)
+                .build();
+
+        final Solver.SolverResult<MagicSquare> result =
+                new MagicSquareSolver(new MagicSquareGA(10, 0), 6, refined).solve();
+
+        assertEquals(0, result.getFitness());
+    }
+
+    @Test
+    public void solverShouldRejectDuplicateChildren() {
+        final SolverConfiguration distinct = new SolverConfiguration.Builder()
+                .maxGenerations(50)
+                .populationSize(100)
+                .N(50)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(5)
+                .rejectDuplicates(true)
+                .build();
+        final MagicSquareSolver solver =
+                new MagicSquareSolver(new MagicSquareGA(10, 1), 3, distinct);
+
+        final Population<MagicSquare> population = solver.solve().getPopulation();
+
+        final Set<MagicSquare> individuals = new HashSet<>();
+        for (int i = 0; i < population.size(); i++) {
+            individuals.add(population.individual(i));
+        }
+        assertEquals(population.size(), individuals.size());
+        assertTrue(solver.duplicateRate() > 0);
+    }
+
+    @Test
+    public void refinedChildrenShouldNotDuplicateIndividuals() {
+        for (int squareSize = 3; squareSize <= 5; squareSize++) {
+            final SolverConfiguration distinct = new SolverConfiguration.Builder()
+                    .maxGenerations(50)
+                    .populationSize(200)
+                    .N(50)
+                    .crossoverProbability(1.0)
+                    .mutationProbability(0.4)
+                    .seed(3)
+                    .rejectDuplicates(true)
+                    .refinement(0.5, 50)
+                    .build();
+            final MagicSquareSolver solver =
+                    new MagicSquareSolver(new MagicSquareGA(10, 1), squareSize, distinct);
+
+            final Population<MagicSquare> population = solver.solve().getPopulation();
+
+            final Set<MagicSquare> individuals = new HashSet<>();
+            for (int i = 0; i < population.size(); i++) {
+                individuals.add(population.individual(i));
+            }
+            assertEquals("size " + squareSize, population.size(), individuals.size());
+        }
+    }
+
+    @Test
+    public void cachedFitnessShouldNotChangeEvolution() {
+        for (final SolverConfiguration.CachePolicy policy
+                : SolverConfiguration.CachePolicy.values()) {
+            final SolverConfiguration.Builder builder = new SolverConfiguration.Builder()
+                    .maxGenerations(20)
+                    .populationSize(100)
+                    .N(5)
+                    .crossoverProbability(1.0)
+                    .mutationProbability(0.4)
+                    .seed(9);
+            final Solver.SolverResult<MagicSquare> uncached = new MagicSquareSolver(
+                    new MagicSquareGA(10, 1), 4, builder.build()).solve();
+            final MagicSquareSolver solver = new MagicSquareSolver(
+                    new MagicSquareGA(10, 1), 4, builder.fitnessCache(50, policy).build());
+
+            final Solver.SolverResult<MagicSquare> cached = solver.solve();
+
+            assertEquals(uncached.getResult(), cached.getResult());
+            assertEquals(uncached.getFitness(), cached.getFitness());
+            assertEquals(uncached.getGeneration(), cached.getGeneration());
+            assertTrue(solver.fitnessCache().hits() > 0);
+            assertTrue(solver.fitnessCache().size() <= 50);
+
+            final Solver.SolverResult<MagicSquare> parallel = new MagicSquareSolver(
+                    new MagicSquareGA(10, 1), 4, builder.parallelism(3).build()).solve();
+            assertEquals(uncached.getResult(), parallel.getResult());
+            assertEquals(uncached.getGeneration(), parallel.getGeneration());
+        }
+    }
+
+    @Test
+    public void stagnantEvolutionShouldBeStopped() {
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 10, terminated().stagnationLimit(3).build());
+
+        final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+        assertEquals(MagicSquareSolver.Termination.STAGNATION, solver.termination());
+        assertTrue(result.getGeneration() < 100000);
+        assertEquals(0, solver.restarts());
+    }
+
+    @Test
+    public void evolutionShouldBeStoppedAfterTimeBudget() {
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 10, terminated().timeBudget(50).build());
+
+        solver.solve();
+
+        assertEquals(MagicSquareSolver.Termination.TIME_BUDGET, solver.termination());
+    }
+
+    @Test
+    public void evolutionWithoutDistinctIndividualsShouldBeStopped() {
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 10, terminated().diversityThreshold(1).build());
+
+        solver.solve();
+
+        assertEquals(MagicSquareSolver.Termination.LOW_DIVERSITY, solver.termination());
+    }
+
+    @Test
+    public void stalledEvolutionShouldBeRestartedKeepingElite() {
+        final List<Integer> best = new ArrayList<>();
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1),
+                10,
+                terminated().N(1).stagnationLimit(3).restarts(2, 0.1).build());
+        solver.addListener(new Solver.Listener<MagicSquare>() {
+            @Override
+            public void progress(
+                    final Solver.SolverResult<MagicSquare> result, final int percent) {
+                best.add(result.getFitness());
+            }
+
+            @Override
+            public void finished(final Solver.SolverResult<MagicSquare> result, final long time) {}
+        });
+
+        solver.solve();
+
+        assertEquals(MagicSquareSolver.Termination.STAGNATION, solver.termination());
+        assertEquals(2, solver.restarts());
+        for (int i = 1; i < best.size(); i++) {
+            assertTrue(best.get(i) <= best.get(i - 1));
+        }
+    }
+
+    @Test
+    public void solverShouldRecordMetrics() {
+        final SolverMetrics metrics = new SolverMetrics();
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1), 6, terminated().maxGenerations(30).build());
+        solver.recordMetrics(metrics);
+
+        final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+        assertEquals(result.getGeneration(), metrics.getGenerations());
+        assertEquals(result.getFitness(), metrics.getBestFitness());
+        assertTrue(metrics.getEvaluations() > 0);
+        assertTrue(metrics.getDiversity() > 0 && metrics.getDiversity() <= 1);
+        assertTrue(metrics.getMeanFitness() >= result.getFitness());
+        for (final SolverMetrics.Phase phase : SolverMetrics.Phase.values()) {
+            if (phase != SolverMetrics.Phase.REFINEMENT) {
+                assertTrue(phase.name(), metrics.phaseNanos(phase) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void metricsShouldCountEvaluationsOfRefinement() {
+        final SolverMetrics metrics = new SolverMetrics();
+        final MagicSquareSolver solver = new MagicSquareSolver(
+                new MagicSquareGA(10, 1),
+                6,
+                terminated().maxGenerations(30).refinement(0.5, 50).parallelism(2).build());
+        solver.recordMetrics(metrics);
+
+        solver.solve();
+
+        // every pair of parents produces a child which is evaluated
+        final long offspring = metrics.getGenerations() * 25;
+        assertTrue(metrics.getEvaluations() > offspring);
+        assertTrue(metrics.phaseNanos(SolverMetrics.Phase.REFINEMENT) > 0);
+    }
+
+    private static SolverConfiguration.Builder terminated() {
+        return new SolverConfiguration.Builder()
+                .maxGenerations(100000)
+                .populationSize(50)
+                .N(1000)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(3);
+    }
+
+    @Test
+    public void progressShouldCopyPopulationOnlyOnDemand() {
+        final MagicSquareSolver solver =
+                new MagicSquareSolver(new MagicSquareGA(10, 1), 4, configuration);
+        final List<Solver.SolverResult<MagicSquare>> progress = new ArrayList<>();
+        final List<Population<MagicSquare>> snapshots = new ArrayList<>();
+        solver.addListener(new Solver.Listener<MagicSquare>() {
+            @Override
+            public void progress(
+                    final Solver.SolverResult<MagicSquare> result, final int percent) {
+                progress.add(result);
+                if (result.getGeneration() == 5) {
+                    snapshots.add(result.getPopulation());
+                }
+            }
+
+            @Override
+            public void finished(
+                    final Solver.SolverResult<MagicSquare> result, final long elapsedMillis) {
+            }
+        });
+
+        solver.solve();
+
+        assertNull(progress.get(0).getPopulation());
+        assertEquals(100, progress.get(0).getSummary().getSize());
+        assertEquals(
+                progress.get(0).getFitness(), progress.get(0).getSummary().getBest());
+        assertSame(snapshots.get(0), progress.get(1).getPopulation());
+        assertEquals(100, snapshots.get(0).size());
+    }
+}
@@ -81,4 +81,11 @@ public class MagicSquareTest {
 
         ms.getCellValue(0, 2);
     }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void chromosomeShouldBeUnmodifiable() {
+        final MagicSquare ms = new MagicSquare(2);
+
+        ms.chromosome().set(0, 4);
+    }
 }
@@ -0,0 +1,118 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.Population;
+import ga.square.magic.Solver;
+import ga.square.magic.SolverConfiguration;
+import ga.square.magic.SplitMixRandom;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class PackedSolverTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void packedFitnessShouldEqualFitnessOfSums() {
+        final MagicSquareGA algorithm = new MagicSquareGA(10, 1.5);
+        final SplitMixRandom random = new SplitMixRandom(11);
+        for (int size = 2; size <= 40; size++) {
+            final MagicSquare square = algorithm.randomIndividual(size, random);
+            final int[] packed = new int[3 + size * size];
+            System.arraycopy(square.genes(), 0, packed, 3, size * size);
+
+            assertEquals(
+                    "size " + size,
+                    algorithm.fitnessOf(square),
+                    MagicSquareSums.fitnessOf(packed, 3, size, new int[2 * size], 1.5));
+        }
+    }
+
+    @Test
+    public void packedSolverShouldEvolveAsObjectSolver() {
+        for (final int parallelism : new int[]{1, 3}) {
+            final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                    .maxGenerations(30)
+                    .populationSize(101)
+                    .N(10)
+                    .crossoverProbability(0.9)
+                    .mutationProbability(0.4)
+                    .parallelism(parallelism)
+                    .seed(17)
+                    .build();
+
+            final Solver.SolverResult<MagicSquare> expected = new MagicSquareSolver(
+                    new MagicSquareGA(10, 1), 6, configuration).solve();
+            final Solver.SolverResult<MagicSquare> packed = new PackedSolver(
+                    new MagicSquareGA(10, 1), 6, configuration).solve();
+
+            assertEquals(expected.getResult(), packed.getResult());
+            assertEquals(expected.getFitness(), packed.getFitness());
+            assertEquals(expected.getGeneration(), packed.getGeneration());
+            final Population<MagicSquare> population = packed.getPopulation();
+            for (int i = 0; i < population.size(); i++) {
+                assertEquals(expected.getPopulation().individual(i), population.individual(i));
+                assertEquals(expected.getPopulation().fitness(i), population.fitness(i));
+            }
+        }
+    }
+
+    @Test
+    public void storageShouldNotChangeEvolution() throws IOException {
+        final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                .maxGenerations(20)
+                .populationSize(64)
+                .N(10)
+                .crossoverProbability(0.9)
+                .mutationProbability(0.4)
+                .parallelism(2)
+                .seed(23)
+                .build();
+        final Solver.SolverResult<MagicSquare> expected = new PackedSolver(
+                new MagicSquareGA(10, 1), 5, configuration).solve();
+
+        for (final PackedSolver.Storage storage : PackedSolver.Storage.values()) {
+            final PackedSolver solver =
+                    new PackedSolver(new MagicSquareGA(10, 1), 5, configuration);
+            solver.storeGenomes(storage, folder.newFolder().toPath());
+
+            final Solver.SolverResult<MagicSquare> result = solver.solve();
+
+            assertEquals(expected.getResult(), result.getResult());
+            assertEquals(expected.getFitness(), result.getFitness());
+            assertEquals(expected.getSummary().getMean(), result.getSummary().getMean(), 0);
+        }
+    }
+
+    @Test
+    public void packedSolverShouldSolveSmallSquare() {
+        final SolverConfiguration configuration = new SolverConfiguration.Builder()
+                .maxGenerations(500)
+                .populationSize(200)
+                .N(50)
+                .crossoverProbability(1.0)
+                .mutationProbability(0.4)
+                .seed(1)
+                .build();
+
+        assertEquals(
+                0,
+                new PackedSolver(new MagicSquareGA(10, 0), 3, configuration)
+                        .solve().getFitness());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packedSolverShouldRejectUnsupportedConfiguration() {
+        new PackedSolver(
+                new MagicSquareGA(10, 1),
+                4,
+                new SolverConfiguration.Builder()
+                        .populationSize(10)
+                        .rejectDuplicates(true)
+                        .build());
+    }
+}
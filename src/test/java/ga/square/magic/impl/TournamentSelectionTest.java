@@ -0,0 +1,58 @@
+package ga.square.magic.impl;
+
+import ga.square.magic.SplitMixRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TournamentSelectionTest {
+    @Test
+    public void shouldRemoveRequestedNumberOfIndividuals() {
+        final int[] fitness = new int[100];
+        for (int i = 0; i < fitness.length; i++) {
+            fitness[i] = fitness.length - i;
+        }
+        final boolean[] removed = new boolean[fitness.length];
+
+        TournamentSelection.selectLosers(
+                fitness, fitness.length, 10, 37, removed, new SplitMixRandom(42));
+
+        int count = 0;
+        for (final boolean r : removed) {
+            if (r) {
+                count++;
+            }
+        }
+        assertEquals(37, count);
+    }
+
+    @Test
+    public void shouldRemoveLastIndividualsAmongEqualOnes() {
+        final int[] fitness = new int[10];
+        final boolean[] removed = new boolean[fitness.length];
+
+        TournamentSelection.selectLosers(
+                fitness, fitness.length, 5, 3, removed, new SplitMixRandom(42));
+
+        for (int i = 0; i < fitness.length; i++) {
+            assertEquals(i >= 7, removed[i]);
+        }
+    }
+
+    @Test
+    public void bestIndividualShouldSurvive() {
+        final int[] fitness = new int[100];
+        for (int i = 0; i < fitness.length; i++) {
+            fitness[i] = fitness.length - i;
+        }
+        final boolean[] removed = new boolean[fitness.length];
+
+        TournamentSelection.selectLosers(
+                fitness, fitness.length, 50, 50, removed, new SplitMixRandom(42));
+
+        assertFalse(removed[fitness.length - 1]);
+        assertTrue(removed[0]);
+    }
+}
@@ -0,0 +1,98 @@
+package ga.square.magic.metrics;
+
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SolverMetricsTest {
+    @Test
+    public void countersShouldSumUpdatesOfAllThreads() throws InterruptedException {
+        final SolverMetrics metrics = new SolverMetrics();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        metrics.recordEvaluations(1);
+                        metrics.recordPhase(SolverMetrics.Phase.CROSSOVER, 2);
+                    }
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, metrics.getEvaluations());
+        assertEquals(80000, metrics.getCrossoverNanos());
+
+        metrics.start();
+
+        assertEquals(0, metrics.getEvaluations());
+        assertEquals(0, metrics.getCrossoverNanos());
+    }
+
+    @Test
+    public void metricsShouldBeWrittenAsText() throws IOException {
+        final SolverMetrics metrics = new SolverMetrics();
+        metrics.recordGeneration(12, 40.5, 0.75);
+        metrics.recordAllocation(1000);
+        metrics.recordPhase(SolverMetrics.Phase.SELECTION, 300);
+
+        final StringBuilder text = new StringBuilder();
+        metrics.writeTo(text);
+
+        assertTrue(text.toString().startsWith("generations 1\n"));
+        assertTrue(text.toString().contains("allocated_bytes_per_generation 1000.000\n"));
+        assertTrue(text.toString().contains("best_fitness 12\n"));
+        assertTrue(text.toString().contains("mean_fitness 40.500\n"));
+        assertTrue(text.toString().contains("diversity 0.750\n"));
+        assertTrue(text.toString().contains("selection_nanos 300\n"));
+    }
+
+    @Test
+    public void metricsShouldBeReadableThroughJmx() throws JMException {
+        final SolverMetrics metrics = new SolverMetrics();
+        metrics.recordGeneration(7, 10, 1);
+
+        final ObjectName name = metrics.register("test");
+        try {
+            assertEquals(
+                    7,
+                    ManagementFactory.getPlatformMBeanServer().getAttribute(name, "BestFitness"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void endpointShouldServeMetricsAsText() throws IOException {
+        final SolverMetrics metrics = new SolverMetrics();
+        metrics.recordEvaluations(5);
+
+        try (final MetricsEndpoint endpoint = new MetricsEndpoint(metrics, 0);
+             final InputStream in = new URL(
+                     "http://localhost:" + endpoint.port() + "/metrics").openStream()) {
+            final String text = new Scanner(in, StandardCharsets.UTF_8.name())
+                    .useDelimiter("\\A").next();
+
+            assertTrue(text.contains("evaluations 5\n"));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ga.square.magic.impl;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Vector API version of {@link ScalarLineSums}: every row is loaded by
+ * vectors of the preferred width, added to the vector of the row sum and to
+ * the sums of columns, the rest of the row is added lane by lane. Sums wrap
+ * exactly like scalar ones.
+ */
+final class VectorLineSums extends LineSums {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    void sums(final int[] genes, final int offset, final int size, final int[] lines) {
+        Arrays.fill(lines, size, 2 * size, 0);
+        final int bound = SPECIES.loopBound(size);
+        for (int y = 0; y < size; y++) {
+            final int row = offset + y * size;
+            IntVector rowSum = IntVector.zero(SPECIES);
+            int x = 0;
+            for (; x < bound; x += SPECIES.length()) {
+                final IntVector cells = IntVector.fromArray(SPECIES, genes, row + x);
+                rowSum = rowSum.add(cells);
+                IntVector.fromArray(SPECIES, lines, size + x).add(cells)
+                        .intoArray(lines, size + x);
+            }
+            int sum = rowSum.reduceLanes(VectorOperators.ADD);
+            for (; x < size; x++) {
+                final int gene = genes[row + x];
+                sum += gene;
+                lines[size + x] += gene;
+            }
+            lines[y] = sum;
+        }
+    }
+}